@@ -18,4 +18,52 @@
 
 # If you keep the line number information, uncomment this to
 # hide the original source file name.
-#-renamesourcefileattribute SourceFile
\ No newline at end of file
+#-renamesourcefileattribute SourceFile
+
+# ---------------------------------------------------------------------------
+# SMSForward
+# ---------------------------------------------------------------------------
+
+# Readable crash stack traces
+-keepattributes SourceFile,LineNumberTable
+-renamesourcefileattribute SourceFile
+
+# Gson (2.10.1 ships no R8 rules). R8 full mode strips generic signatures and the
+# TypeToken subclasses unless told otherwise: new TypeToken<List<SmsMessage>>(){} needs both.
+-keepattributes Signature,InnerClasses,EnclosingMethod,*Annotation*
+-keep,allowobfuscation,allowshrinking class com.google.gson.reflect.TypeToken
+-keep,allowobfuscation,allowshrinking class * extends com.google.gson.reflect.TypeToken
+
+# Gson-reflected models. Field names are the JSON keys already stored on devices
+# (sms_data / message_queue preferences), so they must not be renamed or removed.
+-keepclassmembers class com.cht.smsforward.data.SmsMessage {
+    <init>();
+    !transient <fields>;
+}
+-keepclassmembers class com.cht.smsforward.data.QueuedMessage {
+    !transient <fields>;
+}
+# Stored by constant name; keep the constants so R8 neither renames nor unboxes the enum
+-keep enum com.cht.smsforward.model.ForwardStatus {
+    <fields>;
+}
+
+# JavaMail: transports are created reflectively from META-INF/javamail.default.providers
+# (only SMTP is used) and content handlers from META-INF/mailcap (text/plain bodies)
+-keep class com.sun.mail.smtp.SMTPTransport {
+    <init>(javax.mail.Session, javax.mail.URLName);
+}
+-keep class com.sun.mail.smtp.SMTPSSLTransport {
+    <init>(javax.mail.Session, javax.mail.URLName);
+}
+-keep class * implements javax.activation.DataContentHandler {
+    <init>();
+}
+-dontwarn java.awt.**
+-dontwarn java.beans.**
+-dontwarn javax.security.sasl.**
+-dontwarn javax.security.auth.callback.**
+
+# Compile-only annotations referenced by Tink (security-crypto)
+-dontwarn com.google.errorprone.annotations.**
+-dontwarn javax.annotation.**
@@ -0,0 +1,156 @@
+package com.cht.smsforward;
+
+import com.cht.smsforward.config.UnifiedSettingsManager;
+import com.cht.smsforward.data.SmsDataManager;
+import com.cht.smsforward.sender.EmailSender;
+import com.cht.smsforward.sender.ServerChanSender;
+import com.cht.smsforward.service.SmsEventBus;
+import com.cht.smsforward.util.TimestampFormatter;
+
+import android.app.Application;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+import android.util.Log;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Application class holding the process-wide components shared by the service and the UI
+ * UnifiedSettingsManager sets up the Keystore MasterKey and EncryptedSharedPreferences, which can
+ * take hundreds of milliseconds on older devices. It is created on a background thread as soon as
+ * the process starts (and both configs are decrypted once to warm the cache); the UI waits for it
+ * with {@link #whenSettingsReady}, background code with {@link #getSettingsManager()}.
+ * The SMS data manager is also shared so the listener's writes are visible to the UI immediately,
+ * and the event bus tells the UI which messages changed.
+ */
+public class SmsForwardApplication extends Application {
+
+    private static final String TAG = "SmsForwardApplication";
+
+    /**
+     * Receives the settings manager on the main thread once it is initialized
+     */
+    public interface SettingsReadyCallback {
+        void onSettingsReady(UnifiedSettingsManager settingsManager);
+    }
+
+    private final FutureTask<UnifiedSettingsManager> settingsInit = new FutureTask<>(() -> {
+        long start = System.currentTimeMillis();
+        UnifiedSettingsManager manager = new UnifiedSettingsManager(this);
+        manager.warmUp();
+        Log.d(TAG, "Encrypted settings ready in " + (System.currentTimeMillis() - start) + "ms");
+        return manager;
+    });
+
+    private Handler mainHandler;
+    private SmsDataManager dataManager;
+    private SmsEventBus eventBus;
+    private EmailSender emailSender;
+    private ServerChanSender serverChanSender;
+
+    /**
+     * Get the application instance from any context in this process
+     */
+    public static SmsForwardApplication from(Context context) {
+        return (SmsForwardApplication) context.getApplicationContext();
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        mainHandler = new Handler(Looper.getMainLooper());
+
+        // 事件在主线程按帧合并投递：Choreographer 只能在主线程使用，先切换到主线程再注册帧回调
+        eventBus = new SmsEventBus(frame -> mainHandler.post(() ->
+                Choreographer.getInstance().postFrameCallback(frameTimeNanos -> frame.run())));
+
+        // 缓存的时间戳格式化器和文本按当时的时区和语言生成，变化后重新格式化
+        IntentFilter formatChanges = new IntentFilter(Intent.ACTION_TIMEZONE_CHANGED);
+        formatChanges.addAction(Intent.ACTION_LOCALE_CHANGED);
+        registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                Log.d(TAG, "Time zone or locale changed - timestamps will be formatted again");
+                TimestampFormatter.invalidate();
+            }
+        }, formatChanges);
+
+        // 性能优化：进程启动时在后台初始化加密配置，冷启动和第一条短信都不在主线程上等待 Keystore/Tink
+        new Thread(settingsInit, "SettingsInit").start();
+    }
+
+    public boolean isSettingsReady() {
+        return settingsInit.isDone();
+    }
+
+    /**
+     * Get the settings manager, waiting for its initialization if needed
+     * Call from background threads; on the main thread use {@link #whenSettingsReady} instead.
+     */
+    public UnifiedSettingsManager getSettingsManager() {
+        if (!settingsInit.isDone() && Looper.myLooper() == Looper.getMainLooper()) {
+            Log.w(TAG, "Main thread is waiting for encrypted settings initialization");
+        }
+        try {
+            return settingsInit.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for settings", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Settings initialization failed", e.getCause());
+        }
+    }
+
+    /**
+     * Deliver the settings manager on the main thread: immediately when it is ready, otherwise as
+     * soon as initialization finishes. Must be called on the main thread.
+     */
+    public void whenSettingsReady(SettingsReadyCallback callback) {
+        if (settingsInit.isDone()) {
+            callback.onSettingsReady(getSettingsManager());
+            return;
+        }
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(() -> {
+            UnifiedSettingsManager manager = getSettingsManager();
+            mainHandler.post(() -> callback.onSettingsReady(manager));
+        });
+    }
+
+    /**
+     * The single SMS data manager (one cache, one fingerprint index, one background thread) for the process
+     */
+    public synchronized SmsDataManager getDataManager() {
+        if (dataManager == null) {
+            dataManager = new SmsDataManager(this);
+        }
+        return dataManager;
+    }
+
+    /**
+     * Events from the SMS pipeline, delivered on the main thread once per frame
+     */
+    public SmsEventBus getEventBus() {
+        return eventBus;
+    }
+
+    public synchronized EmailSender getEmailSender() {
+        if (emailSender == null) {
+            emailSender = new EmailSender(this, getSettingsManager());
+        }
+        return emailSender;
+    }
+
+    public synchronized ServerChanSender getServerChanSender() {
+        if (serverChanSender == null) {
+            serverChanSender = new ServerChanSender(this, getSettingsManager());
+        }
+        return serverChanSender;
+    }
+}
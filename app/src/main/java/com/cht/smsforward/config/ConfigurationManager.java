@@ -15,6 +15,9 @@ import java.util.function.Supplier;
 /**
  * Unified configuration manager for all forwarding services
  * Uses encrypted shared preferences to securely store sensitive configuration data
+ * The decrypted config is cached in memory and dropped on save/clear/setEnabled and whenever the
+ * underlying preferences change, so repeated loads on the send path skip decryption. Callers get
+ * their own copy; the cached instance is never handed out or modified.
  */
 public class ConfigurationManager<T extends ForwardingConfig> {
     private static final String TAG = "ConfigurationManager";
@@ -26,6 +29,13 @@ public class ConfigurationManager<T extends ForwardingConfig> {
     
     private SharedPreferences encryptedPrefs;
     private Context context;
+
+    // 性能优化：解密后的配置缓存（每个键一次 AES-GCM 解密，只在配置变化后重新执行）
+    private final Object cacheLock = new Object();
+    private volatile T cachedConfig;
+    // SharedPreferences 只保存监听器的弱引用，这里必须持有强引用
+    private final SharedPreferences.OnSharedPreferenceChangeListener prefsChangeListener =
+            (prefs, key) -> invalidateCache();
     
     /**
      * Interface for serializing/deserializing configuration objects
@@ -44,6 +54,9 @@ public class ConfigurationManager<T extends ForwardingConfig> {
         this.configFactory = configFactory;
         this.serializer = serializer;
         initializeEncryptedPreferences();
+        if (encryptedPrefs != null) {
+            encryptedPrefs.registerOnSharedPreferenceChangeListener(prefsChangeListener);
+        }
     }
     
     /**
@@ -95,6 +108,7 @@ public class ConfigurationManager<T extends ForwardingConfig> {
             serializer.serialize(config, editor);
             
             boolean success = editor.commit();
+            invalidateCache();
             Log.d(TAG, configType + " config saved: " + success);
             return success;
         } catch (Exception e) {
@@ -105,20 +119,59 @@ public class ConfigurationManager<T extends ForwardingConfig> {
     
     /**
      * Load configuration
+     * Returns a copy of the cached config: changing it (e.g. before deciding whether to save) does
+     * not affect other callers or the send path; call saveConfig() to change settings.
      */
     public T loadConfig() {
+        T cached = cachedConfig;
+        if (cached != null) {
+            return copyOf(cached);
+        }
+
+        synchronized (cacheLock) {
+            if (cachedConfig == null) {
+                T config = readConfig();
+                if (config != null) {
+                    cachedConfig = config;
+                    Log.d(TAG, configType + " config loaded: " + config.toString());
+                } else {
+                    return configFactory.get();
+                }
+            }
+            return copyOf(cachedConfig);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T copyOf(T config) {
+        // 每种配置的 copy() 返回自身类型（协变返回值）
+        return (T) config.copy();
+    }
+
+    /**
+     * Decrypt and deserialize the stored configuration
+     * @return null if the preferences are unavailable or cannot be read
+     */
+    private T readConfig() {
         if (encryptedPrefs == null) {
             Log.e(TAG, "Encrypted preferences not initialized for " + configType);
-            return configFactory.get();
+            return null;
         }
-        
+
         try {
-            T config = serializer.deserialize(encryptedPrefs);
-            Log.d(TAG, configType + " config loaded: " + config.toString());
-            return config;
+            return serializer.deserialize(encryptedPrefs);
         } catch (Exception e) {
             Log.e(TAG, "Failed to load " + configType + " config", e);
-            return configFactory.get();
+            return null;
+        }
+    }
+
+    /**
+     * Drop the cached config; the next load decrypts the stored values again
+     */
+    private void invalidateCache() {
+        synchronized (cacheLock) {
+            cachedConfig = null;
         }
     }
     
@@ -138,6 +191,7 @@ public class ConfigurationManager<T extends ForwardingConfig> {
             }
             
             boolean success = editor.commit();
+            invalidateCache();
             Log.d(TAG, configType + " config cleared: " + success);
             return success;
         } catch (Exception e) {
@@ -155,8 +209,11 @@ public class ConfigurationManager<T extends ForwardingConfig> {
         }
 
         try {
-            // Load current config to preserve other settings
-            T currentConfig = loadConfig();
+            // Load current config to preserve other settings (fresh read, not the cached copy)
+            T currentConfig = readConfig();
+            if (currentConfig == null) {
+                currentConfig = configFactory.get();
+            }
             currentConfig.setEnabled(enabled);
 
             // Save the complete config with updated enabled status
@@ -58,6 +58,11 @@ public class EmailConfig implements ForwardingConfig {
         this.enabled = enabled;
     }
     
+    @Override
+    public EmailConfig copy() {
+        return new EmailConfig(senderEmail, senderPassword, recipientEmail, enabled);
+    }
+    
     /**
      * Check if the configuration is valid for sending emails
      */
@@ -19,6 +19,11 @@ public interface ForwardingConfig {
      */
     void setEnabled(boolean enabled);
     
+    /**
+     * Independent copy with the same settings (callers may change it without affecting the original)
+     */
+    ForwardingConfig copy();
+    
     /**
      * Get a string representation of the configuration
      */
@@ -39,6 +39,11 @@ public class ServerChanConfig implements ForwardingConfig {
         this.enabled = enabled;
     }
     
+    @Override
+    public ServerChanConfig copy() {
+        return new ServerChanConfig(sendKey, enabled);
+    }
+    
     /**
      * Check if the configuration is valid (has all required fields)
      */
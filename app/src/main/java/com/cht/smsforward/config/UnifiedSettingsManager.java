@@ -31,6 +31,14 @@ public class UnifiedSettingsManager {
         );
     }
     
+    /**
+     * Decrypt both configurations once so later loads are served from the in-memory cache
+     */
+    public void warmUp() {
+        emailConfigManager.loadConfig();
+        serverChanConfigManager.loadConfig();
+    }
+
     // Email configuration methods
     public boolean saveEmailConfig(EmailConfig config) {
         return emailConfigManager.saveConfig(config);
@@ -0,0 +1,164 @@
+package com.cht.smsforward.data;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from 64-bit content fingerprints to timestamps (pure Java)
+ * One interleaved long array (key, value, key, value, ...) with linear probing at a load factor of at
+ * most 0.75: 16 bytes per slot, so 21 to 43 bytes per message depending on how full the table is.
+ * That is above the 16 bytes per message of the raw key and value: an open-addressing table needs
+ * free slots (a fuller table makes linear probe chains, and misses in particular, much longer), and
+ * doubling on growth leaves it between 0.375 and 0.75 full. No per-entry objects, no boxing and no
+ * copy of the message text; a key and its value share a cache line. Removal uses backward-shift
+ * deletion, so there are no tombstones and lookups stay short as messages are evicted.
+ */
+public class FingerprintIndex {
+
+    /** Returned by {@link #get(long)} when the fingerprint is not present */
+    public static final long NO_VALUE = Long.MIN_VALUE;
+
+    // 0 作为空槽标记；恰好为 0 的指纹映射为 1（对重复检测的影响可以忽略）
+    private static final long EMPTY = 0L;
+    private static final int MIN_CAPACITY = 16;
+
+    // table[2 * slot] 为键，table[2 * slot + 1] 为值
+    private long[] table;
+    private int mask;
+    private int resizeThreshold;
+    private int size;
+
+    public FingerprintIndex() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize number of entries the index should hold without resizing
+     */
+    public FingerprintIndex(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the timestamp stored for the fingerprint, or {@link #NO_VALUE}
+     */
+    public long get(long fingerprint) {
+        long key = normalize(fingerprint);
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = table[slot << 1];
+            if (current == key) {
+                return table[(slot << 1) + 1];
+            }
+            if (current == EMPTY) {
+                return NO_VALUE;
+            }
+        }
+    }
+
+    public boolean contains(long fingerprint) {
+        return get(fingerprint) != NO_VALUE;
+    }
+
+    /**
+     * Insert or replace the timestamp for a fingerprint
+     */
+    public void put(long fingerprint, long timestamp) {
+        long key = normalize(fingerprint);
+        int slot = slot(key);
+        while (table[slot << 1] != EMPTY) {
+            if (table[slot << 1] == key) {
+                table[(slot << 1) + 1] = timestamp;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot << 1] = key;
+        table[(slot << 1) + 1] = timestamp;
+        if (++size > resizeThreshold) {
+            resize((mask + 1) << 1);
+        }
+    }
+
+    /**
+     * @return true if the fingerprint was present
+     */
+    public boolean remove(long fingerprint) {
+        long key = normalize(fingerprint);
+        int slot = slot(key);
+        while (table[slot << 1] != key) {
+            if (table[slot << 1] == EMPTY) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // 后移删除：把后续同一探测链上的条目前移填补空位
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (table[next << 1] != EMPTY) {
+            int home = slot(table[next << 1]);
+            // home 不在 (hole, next] 区间内（循环意义）时，该条目可以移动到 hole
+            boolean movable = hole <= next ? (home <= hole || home > next) : (home <= hole && home > next);
+            if (movable) {
+                table[hole << 1] = table[next << 1];
+                table[(hole << 1) + 1] = table[(next << 1) + 1];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[hole << 1] = EMPTY;
+        table[(hole << 1) + 1] = 0L;
+        size--;
+        return true;
+    }
+
+    /**
+     * Remove all entries, keeping the allocated table
+     */
+    public void clear() {
+        Arrays.fill(table, EMPTY);
+        size = 0;
+    }
+
+    private void resize(int newCapacity) {
+        long[] old = table;
+        allocate(newCapacity);
+        for (int i = 0; i < old.length; i += 2) {
+            long key = old[i];
+            if (key != EMPTY) {
+                int slot = slot(key);
+                while (table[slot << 1] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot << 1] = key;
+                table[(slot << 1) + 1] = old[i + 1];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        table = new long[capacity << 1];
+        mask = capacity - 1;
+        resizeThreshold = capacity - (capacity >> 2);
+    }
+
+    private int slot(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    private static long normalize(long fingerprint) {
+        return fingerprint == EMPTY ? 1L : fingerprint;
+    }
+
+    // 负载因子不超过 0.75（线性探测在此负载下平均命中探测约 2.5 次）
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity - (capacity >> 2) < expectedSize && capacity < (1 << 29)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
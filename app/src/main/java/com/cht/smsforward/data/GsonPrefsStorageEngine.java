@@ -0,0 +1,98 @@
+package com.cht.smsforward.data;
+
+import com.cht.smsforward.model.ForwardStatus;
+
+import android.content.SharedPreferences;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores the whole message list as one Gson JSON string in SharedPreferences (original format)
+ */
+public class GsonPrefsStorageEngine implements SmsStorageEngine {
+
+    public static final String NAME = "gson-prefs";
+    static final String KEY_SMS_MESSAGES = "sms_messages";
+    static final String KEY_GENERATION = "sms_messages_generation";
+
+    private static final Type LIST_TYPE = new TypeToken<List<SmsMessage>>(){}.getType();
+
+    private final SharedPreferences prefs;
+    private final Gson gson;
+
+    public GsonPrefsStorageEngine(SharedPreferences prefs) {
+        this.prefs = prefs;
+
+        // Create Gson with custom ForwardStatus serializer/deserializer
+        this.gson = new GsonBuilder()
+                .registerTypeAdapter(ForwardStatus.class, new ForwardStatusAdapter())
+                .create();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<SmsMessage> load() {
+        String json = prefs.getString(KEY_SMS_MESSAGES, null);
+        if (json != null) {
+            List<SmsMessage> messages = gson.fromJson(json, LIST_TYPE);
+            if (messages != null) {
+                return messages;
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    @Override
+    public void save(List<SmsMessage> messages) {
+        String json = gson.toJson(messages);
+        prefs.edit()
+                .putString(KEY_SMS_MESSAGES, json)
+                .putLong(KEY_GENERATION, getGeneration() + 1)
+                .apply();
+    }
+
+    @Override
+    public void clear() {
+        prefs.edit()
+                .remove(KEY_SMS_MESSAGES)
+                .putLong(KEY_GENERATION, getGeneration() + 1)
+                .apply();
+    }
+
+    @Override
+    public long getGeneration() {
+        return prefs.getLong(KEY_GENERATION, 0L);
+    }
+
+    /**
+     * Custom Gson adapter for unified ForwardStatus enum
+     */
+    private static class ForwardStatusAdapter implements JsonSerializer<ForwardStatus>, JsonDeserializer<ForwardStatus> {
+        @Override
+        public JsonElement serialize(ForwardStatus src, Type typeOfSrc, JsonSerializationContext context) {
+            return new JsonPrimitive(src.getValue());
+        }
+
+        @Override
+        public ForwardStatus deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
+            return ForwardStatus.fromValue(json.getAsString());
+        }
+    }
+}
@@ -11,6 +11,7 @@ import com.google.gson.reflect.TypeToken;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Persistent message queue for storing SMS messages when the app is backgrounded
@@ -37,8 +38,52 @@ public class MessageQueue {
      */
     public void queueMessage(String content, String sender, String packageName, long timestamp, 
                            List<String> verificationCodes, String primaryCode) {
+        enqueue(content, sender, packageName, timestamp, verificationCodes, primaryCode, false);
+    }
+
+    /**
+     * Add a message to the queue and write it to disk before returning (write-ahead record for a
+     * forward that is about to start; removed with removeMessage once the send succeeded)
+     * @return false if the record could not be written
+     */
+    public boolean queueMessageDurably(String content, String sender, String packageName, long timestamp,
+                                       List<String> verificationCodes, String primaryCode) {
+        return enqueue(content, sender, packageName, timestamp, verificationCodes, primaryCode, true);
+    }
+
+    /**
+     * Remove the queued message with this content, sender and timestamp
+     * @return true if a message was removed
+     */
+    public synchronized boolean removeMessage(String content, String sender, long timestamp) {
+        try {
+            List<QueuedMessage> queuedMessages = getQueuedMessages();
+            for (int i = 0; i < queuedMessages.size(); i++) {
+                if (queuedMessages.get(i).matches(content, sender, timestamp)) {
+                    queuedMessages.remove(i);
+                    saveQueuedMessages(queuedMessages, false);
+                    Log.d(TAG, "Message removed from queue - Total queued: " + queuedMessages.size());
+                    return true;
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error removing queued message", e);
+        }
+        return false;
+    }
+
+    private synchronized boolean enqueue(String content, String sender, String packageName, long timestamp,
+                                         List<String> verificationCodes, String primaryCode, boolean durable) {
         try {
             List<QueuedMessage> queuedMessages = getQueuedMessages();
+
+            // 同一条消息只排队一次（转发前已写入的记录，转发出错时不再重复添加）
+            for (QueuedMessage queued : queuedMessages) {
+                if (queued.matches(content, sender, timestamp)) {
+                    Log.d(TAG, "Message already queued - Total queued: " + queuedMessages.size());
+                    return true;
+                }
+            }
             
             // Create new queued message
             QueuedMessage newMessage = new QueuedMessage(
@@ -57,12 +102,14 @@ public class MessageQueue {
             }
             
             // Save updated queue
-            saveQueuedMessages(queuedMessages);
+            boolean saved = saveQueuedMessages(queuedMessages, durable);
             
             Log.d(TAG, "Message queued - Total queued: " + queuedMessages.size());
+            return saved;
             
         } catch (Exception e) {
             Log.e(TAG, "Error queuing message", e);
+            return false;
         }
     }
     
@@ -85,21 +132,30 @@ public class MessageQueue {
     
     /**
      * Save queued messages to persistent storage
+     * @param durable write to disk before returning (commit) instead of in the background (apply)
      */
-    private void saveQueuedMessages(List<QueuedMessage> messages) {
+    private boolean saveQueuedMessages(List<QueuedMessage> messages, boolean durable) {
         try {
             String json = gson.toJson(messages);
-            prefs.edit().putString(KEY_QUEUED_MESSAGES, json).apply();
+            SharedPreferences.Editor editor = prefs.edit().putString(KEY_QUEUED_MESSAGES, json);
+            boolean saved = true;
+            if (durable) {
+                saved = editor.commit();
+            } else {
+                editor.apply();
+            }
             Log.d(TAG, "Saved " + messages.size() + " queued messages");
+            return saved;
         } catch (Exception e) {
             Log.e(TAG, "Error saving queued messages", e);
+            return false;
         }
     }
     
     /**
      * Clear all queued messages
      */
-    public void clearQueue() {
+    public synchronized void clearQueue() {
         prefs.edit().remove(KEY_QUEUED_MESSAGES).apply();
         Log.d(TAG, "Message queue cleared");
     }
@@ -149,6 +205,11 @@ class QueuedMessage {
     public long getTimestamp() { return timestamp; }
     public List<String> getVerificationCodes() { return verificationCodes; }
     public String getPrimaryCode() { return primaryCode; }
+
+    boolean matches(String content, String sender, long timestamp) {
+        return this.timestamp == timestamp && Objects.equals(this.content, content) &&
+               Objects.equals(this.sender, sender);
+    }
     
     /**
      * Convert to SmsMessage object
@@ -1,15 +1,13 @@
 package com.cht.smsforward.data;
 
 import com.cht.smsforward.model.ForwardStatus;
+import com.cht.smsforward.util.TimestampFormatter;
 import com.cht.smsforward.util.VerificationCodeExtractor;
 
 import android.text.SpannableString;
 
 import java.io.Serializable;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * Data model representing an SMS message with verification code information
@@ -25,6 +23,10 @@ public class SmsMessage implements Serializable {
     private List<String> verificationCodes;
     private String primaryVerificationCode;
     private transient SpannableString highlightedContent; // transient to exclude from JSON serialization
+    private transient String formattedTimestamp; // 列表每次绑定都会用到，首次格式化后缓存
+    private transient String formattedDate;
+    private transient int formatEpoch; // 缓存文本对应的 TimestampFormatter 格式化版本（时区/语言变化后失效）
+    private transient String verificationCodesText; // 验证码列表的显示文本，首次显示时生成
 
     // Unified forwarding status (single status for all forwarding methods)
     private ForwardStatus forwardStatus;
@@ -64,8 +66,7 @@ public class SmsMessage implements Serializable {
         this.serverChanStatus = hasVerificationCodes() ? ForwardStatus.NOT_SENT : ForwardStatus.DISABLED;
         this.serverChanError = null;
 
-        // Create highlighted content
-        this.highlightedContent = VerificationCodeExtractor.createHighlightedText(content);
+        // 性能优化：高亮内容在首次显示时才创建（见 getHighlightedContent），构造时不分配Span
     }
 
 
@@ -94,8 +95,7 @@ public class SmsMessage implements Serializable {
         this.serverChanStatus = hasVerificationCodes() ? ForwardStatus.NOT_SENT : ForwardStatus.DISABLED;
         this.serverChanError = null;
 
-        // Create highlighted content
-        this.highlightedContent = VerificationCodeExtractor.createHighlightedText(content);
+        // 性能优化：高亮内容在首次显示时才创建（见 getHighlightedContent），构造时不分配Span
     }
     
     // Getters
@@ -125,24 +125,50 @@ public class SmsMessage implements Serializable {
     
     public SpannableString getHighlightedContent() {
         if (highlightedContent == null && content != null) {
-            // Recreate highlighted content if it's null (e.g., after deserialization)
-            highlightedContent = VerificationCodeExtractor.createHighlightedText(content);
+            // Create highlighted content lazily (first display, or after deserialization)
+            highlightedContent = VerificationCodeExtractor.createHighlightedText(content, verificationCodes);
         }
         return highlightedContent;
     }
     
+    /**
+     * Verification codes joined for display ("123456, 654321"), built once per message
+     */
+    public String getVerificationCodesText() {
+        if (verificationCodesText == null && hasVerificationCodes()) {
+            verificationCodesText = String.join(", ", verificationCodes);
+        }
+        return verificationCodesText;
+    }
+
     public boolean hasVerificationCodes() {
         return verificationCodes != null && !verificationCodes.isEmpty();
     }
     
     public String getFormattedTimestamp() {
-        SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss", Locale.getDefault());
-        return sdf.format(new Date(timestamp));
+        // 性能优化：时间戳不会变化，格式化结果缓存在消息上（滚动时重新绑定不再创建 SimpleDateFormat）
+        checkFormatEpoch();
+        if (formattedTimestamp == null) {
+            formattedTimestamp = TimestampFormatter.formatTime(timestamp);
+        }
+        return formattedTimestamp;
     }
     
     public String getFormattedDate() {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-        return sdf.format(new Date(timestamp));
+        checkFormatEpoch();
+        if (formattedDate == null) {
+            formattedDate = TimestampFormatter.formatDateTime(timestamp);
+        }
+        return formattedDate;
+    }
+
+    private void checkFormatEpoch() {
+        int epoch = TimestampFormatter.getEpoch();
+        if (formatEpoch != epoch) {
+            formattedTimestamp = null;
+            formattedDate = null;
+            formatEpoch = epoch;
+        }
     }
 
     // Unified forwarding status methods
@@ -157,59 +183,54 @@ public class SmsMessage implements Serializable {
 
 
     /**
-     * Update email forward status to sending
-     */
-    public void setEmailSending() {
-        this.emailStatus = ForwardStatus.SENDING;
-        this.emailError = null;
-        updateUnifiedStatus();
-    }
-
-    /**
-     * Update email forward status to success
-     */
-    public void setEmailSent() {
-        this.emailStatus = ForwardStatus.SUCCESS;
-        this.emailError = null;
-        updateUnifiedStatus();
-    }
-
-    /**
-     * Update email forward status to failed with error message
-     */
-    public void setEmailFailed(String error) {
-        this.emailStatus = ForwardStatus.FAILED;
-        this.emailError = error;
-        updateUnifiedStatus();
-    }
-
-
-
-    /**
-     * Update Server酱 forward status to sending
+     * Copy of this message with the email forward status changed (this instance is not modified)
+     * Stored messages are shared with the persist thread and the UI, so a status change makes a new
+     * SmsMessage that replaces the stored one (SmsDataManager.updateSmsMessage).
+     * @param error failure reason for FAILED, otherwise null
      */
-    public void setServerChanSending() {
-        this.serverChanStatus = ForwardStatus.SENDING;
-        this.serverChanError = null;
-        updateUnifiedStatus();
+    public SmsMessage withEmailStatus(ForwardStatus status, String error) {
+        SmsMessage copy = copy();
+        copy.emailStatus = status;
+        copy.emailError = error;
+        copy.updateUnifiedStatus();
+        return copy;
     }
 
     /**
-     * Update Server酱 forward status to success
+     * Copy of this message with the Server酱 forward status changed (this instance is not modified)
+     * @param error failure reason for FAILED, otherwise null
      */
-    public void setServerChanSent() {
-        this.serverChanStatus = ForwardStatus.SUCCESS;
-        this.serverChanError = null;
-        updateUnifiedStatus();
+    public SmsMessage withServerChanStatus(ForwardStatus status, String error) {
+        SmsMessage copy = copy();
+        copy.serverChanStatus = status;
+        copy.serverChanError = error;
+        copy.updateUnifiedStatus();
+        return copy;
     }
 
     /**
-     * Update Server酱 forward status to failed with error message
+     * Field-by-field copy, including the per-channel status and the cached display text
      */
-    public void setServerChanFailed(String error) {
-        this.serverChanStatus = ForwardStatus.FAILED;
-        this.serverChanError = error;
-        updateUnifiedStatus();
+    private SmsMessage copy() {
+        SmsMessage copy = new SmsMessage();
+        copy.content = content;
+        copy.sender = sender;
+        copy.packageName = packageName;
+        copy.timestamp = timestamp;
+        copy.verificationCodes = verificationCodes;
+        copy.primaryVerificationCode = primaryVerificationCode;
+        copy.highlightedContent = highlightedContent;
+        copy.formattedTimestamp = formattedTimestamp;
+        copy.formattedDate = formattedDate;
+        copy.formatEpoch = formatEpoch;
+        copy.verificationCodesText = verificationCodesText;
+        copy.forwardStatus = forwardStatus;
+        copy.forwardError = forwardError;
+        copy.emailStatus = emailStatus;
+        copy.emailError = emailError;
+        copy.serverChanStatus = serverChanStatus;
+        copy.serverChanError = serverChanError;
+        return copy;
     }
     
     /**
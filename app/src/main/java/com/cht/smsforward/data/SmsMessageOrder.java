@@ -0,0 +1,83 @@
+package com.cht.smsforward.data;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Binary search helpers for message lists kept newest first (pure Java)
+ * The store, the UI adapter and lookups by (timestamp, sender, content) all rely on this ordering,
+ * so lists are sorted once when they enter the app and only ever kept sorted by insertion.
+ */
+public final class SmsMessageOrder {
+
+    /** Newest first; messages with equal timestamps keep their relative order in a stable sort */
+    public static final Comparator<SmsMessage> NEWEST_FIRST =
+            (msg1, msg2) -> Long.compare(msg2.getTimestamp(), msg1.getTimestamp());
+
+    private SmsMessageOrder() {
+    }
+
+    /**
+     * Position at which a message with this timestamp is inserted: after all messages that are
+     * newer or equally new, before the first older one (same as the previous linear scan)
+     */
+    public static int insertionIndex(List<SmsMessage> messages, long timestamp) {
+        int low = 0;
+        int high = messages.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (messages.get(mid).getTimestamp() >= timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Index of the first message with the given timestamp or older
+     */
+    public static int firstAtOrBefore(List<SmsMessage> messages, long timestamp) {
+        int low = 0;
+        int high = messages.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (messages.get(mid).getTimestamp() > timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Find the message with this timestamp, sender and content
+     * @return its index, or -1
+     */
+    public static int indexOf(List<SmsMessage> messages, long timestamp, String sender, String content) {
+        for (int i = firstAtOrBefore(messages, timestamp); i < messages.size(); i++) {
+            SmsMessage message = messages.get(i);
+            if (message.getTimestamp() != timestamp) {
+                break;
+            }
+            if (message.getSender().equals(sender) && (content == null || message.getContent().equals(content))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * O(n) check used to avoid re-sorting lists that are already in order
+     */
+    public static boolean isNewestFirst(List<SmsMessage> messages) {
+        for (int i = 1; i < messages.size(); i++) {
+            if (messages.get(i - 1).getTimestamp() < messages.get(i).getTimestamp()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,294 @@
+package com.cht.smsforward.data;
+
+import com.cht.smsforward.util.ContentFingerprint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * In-memory message cache with duplicate index on top of a SmsStorageEngine (pure Java)
+ * SmsDataManager wraps it with the Android background thread and logging; the benchmark
+ * module drives it directly to measure the storage formats.
+ * The cache and index are updated by deltas on add/update/clear; they are rebuilt from storage only
+ * on first load and when a write or reload() finds that the engine's generation shows a write made
+ * by someone else.
+ * Readers get the current immutable snapshot with one volatile read (no lock, no copy, no storage
+ * access); writers (serialized by cacheLock) build the next list once and publish it with a single
+ * volatile write.
+ */
+public class SmsMessageStore {
+
+    // 重复检测的时间容差（1秒内认为是同一条消息）
+    private static final long DUPLICATE_WINDOW_MS = 1000;
+
+    /**
+     * Published cache version: read-only messages (newest first) and the storage generation they match
+     */
+    private static final class Snapshot {
+        final List<SmsMessage> messages;
+        final long generation;
+
+        Snapshot(List<SmsMessage> messages, long generation) {
+            this.messages = Collections.unmodifiableList(messages);
+            this.generation = generation;
+        }
+    }
+
+    private final SmsStorageEngine engine;
+    private final int capacity;
+
+    // 性能优化：写时复制的内存缓存，读操作不加锁、不复制
+    private final Object cacheLock = new Object();
+    private volatile Snapshot snapshot;
+
+    // 重复检测优化：64位指纹 -> 时间戳，不保存消息文本副本（由 cacheLock 保护）
+    private final FingerprintIndex messageHashes;
+
+    public SmsMessageStore(SmsStorageEngine engine, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.engine = engine;
+        this.capacity = capacity;
+        this.messageHashes = new FingerprintIndex(capacity);
+    }
+
+    public SmsStorageEngine getEngine() {
+        return engine;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Load the cache from storage if it has not been loaded yet
+     * @return number of cached messages
+     */
+    public int preload() {
+        return getMessages().size();
+    }
+
+    /**
+     * Read the messages again from storage if they were written outside this store
+     * @return number of cached messages
+     */
+    public int reload() {
+        synchronized (cacheLock) {
+            return ensureLoaded().messages.size();
+        }
+    }
+
+    /**
+     * Get the current messages (newest first) as a read-only snapshot
+     * The returned list never changes; later writes publish a new snapshot. Writes made outside this
+     * store become visible after the next write or reload().
+     */
+    public List<SmsMessage> getMessages() {
+        // 性能优化：读路径只读取 volatile 快照，不访问存储（检查存储代数需要获取 SharedPreferences 的锁）
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current.messages;
+        }
+        synchronized (cacheLock) {
+            return ensureLoaded().messages;
+        }
+    }
+
+    /**
+     * Timestamp of the newest cached message, or Long.MIN_VALUE when nothing is stored
+     */
+    public long getNewestTimestamp() {
+        List<SmsMessage> messages = getMessages();
+        return messages.isEmpty() ? Long.MIN_VALUE : messages.get(0).getTimestamp();
+    }
+
+    /**
+     * Whether a message with this content, sender and timestamp is stored (same rule as the duplicate check in add)
+     */
+    public boolean contains(String content, String sender, long timestamp) {
+        synchronized (cacheLock) {
+            ensureLoaded();
+            long existingTimestamp = messageHashes.get(createMessageHash(content, sender, timestamp));
+            return existingTimestamp != FingerprintIndex.NO_VALUE &&
+                   Math.abs(existingTimestamp - timestamp) <= DUPLICATE_WINDOW_MS;
+        }
+    }
+
+    /**
+     * Replace all messages: sort (when out of order), trim to capacity and persist
+     * @return number of messages kept
+     */
+    public int replaceAll(List<SmsMessage> messages) {
+        synchronized (cacheLock) {
+            List<SmsMessage> sorted = new ArrayList<>(messages);
+            sortIfNeeded(sorted);
+            return persist(sorted, true);
+        }
+    }
+
+    /**
+     * Insert a new message in timestamp order and persist
+     * @return false if the message is a duplicate of a stored one
+     */
+    public boolean add(SmsMessage newMessage) {
+        synchronized (cacheLock) {
+            List<SmsMessage> current = ensureLoaded().messages;
+
+            // 快速重复检测使用哈希表
+            long messageHash = createMessageHash(newMessage);
+            long existingTimestamp = messageHashes.get(messageHash);
+
+            if (existingTimestamp != FingerprintIndex.NO_VALUE) {
+                // 检查时间差是否在容忍范围内（1秒）
+                long timeDiff = Math.abs(existingTimestamp - newMessage.getTimestamp());
+                if (timeDiff <= DUPLICATE_WINDOW_MS) {
+                    return false;
+                }
+            }
+
+            // 二分查找插入位置（按时间戳降序），插入后列表仍然有序
+            int insertIndex = SmsMessageOrder.insertionIndex(current, newMessage.getTimestamp());
+
+            // 构建新版本（唯一一次复制），添加到列表和哈希索引
+            List<SmsMessage> messages = new ArrayList<>(current.size() + 1);
+            messages.addAll(current);
+            messages.add(insertIndex, newMessage);
+            messageHashes.put(messageHash, newMessage.getTimestamp());
+
+            // 同步保存到存储（淘汰的旧消息从索引中移除）；保存失败时撤销索引项，否则重试会被误判为重复
+            try {
+                persist(messages, false);
+            } catch (RuntimeException e) {
+                if (existingTimestamp != FingerprintIndex.NO_VALUE) {
+                    messageHashes.put(messageHash, existingTimestamp);
+                } else {
+                    messageHashes.remove(messageHash);
+                }
+                throw e;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Replace the stored message with the same timestamp, sender and content, and persist
+     * @return false if no such message is stored
+     */
+    public boolean update(SmsMessage updatedMessage) {
+        synchronized (cacheLock) {
+            List<SmsMessage> current = ensureLoaded().messages;
+
+            // 在缓存中按时间戳二分查找
+            int index = SmsMessageOrder.indexOf(current, updatedMessage.getTimestamp(),
+                    updatedMessage.getSender(), updatedMessage.getContent());
+            if (index < 0) {
+                return false;
+            }
+
+            List<SmsMessage> messages = new ArrayList<>(current);
+            messages.set(index, updatedMessage);
+
+            // 同步保存到存储以确保状态更新的实时性（内容、发送者和时间未变，索引无需更新）
+            persist(messages, false);
+            return true;
+        }
+    }
+
+    /**
+     * Remove all messages from the cache and storage
+     */
+    public void clear() {
+        synchronized (cacheLock) {
+            messageHashes.clear();
+            engine.clear();
+            snapshot = new Snapshot(new ArrayList<>(), engine.getGeneration());
+        }
+    }
+
+    /**
+     * Load on first use, or again when another writer changed the stored data (caller holds cacheLock)
+     * 性能优化：只在首次加载或检测到外部写入时全量重建缓存和索引
+     */
+    private Snapshot ensureLoaded() {
+        Snapshot current = snapshot;
+        long generation = engine.getGeneration();
+        if (current == null || generation != current.generation) {
+            List<SmsMessage> loaded = engine.load();
+            // 存储中的列表本来就是有序的，只有旧数据或外部写入的乱序数据才需要排序
+            sortIfNeeded(loaded);
+            current = new Snapshot(loaded, generation);
+            buildMessageHashIndex(current.messages);
+            snapshot = current;
+        }
+        return current;
+    }
+
+    private static void sortIfNeeded(List<SmsMessage> messages) {
+        if (!SmsMessageOrder.isNewestFirst(messages)) {
+            messages.sort(SmsMessageOrder.NEWEST_FIRST);
+        }
+    }
+
+    /**
+     * 内部同步保存方法：裁剪、保存并发布新快照（messages 已按时间戳降序排列，归本方法所有，调用方持有 cacheLock）
+     * @param rebuildIndex true for bulk replacement; otherwise the caller has already indexed new
+     *                     messages and only the evicted ones are removed from the index
+     */
+    private int persist(List<SmsMessage> messages, boolean rebuildIndex) {
+        // 限制存储数量，只保留最新的消息
+        List<SmsMessage> evicted = null;
+        if (messages.size() > capacity) {
+            List<SmsMessage> overflow = messages.subList(capacity, messages.size());
+            evicted = new ArrayList<>(overflow);
+            overflow.clear();
+        }
+
+        engine.save(messages);
+
+        // 发布新快照
+        snapshot = new Snapshot(messages, engine.getGeneration());
+        if (rebuildIndex) {
+            buildMessageHashIndex(messages);
+        } else if (evicted != null) {
+            for (SmsMessage message : evicted) {
+                removeFromIndex(message);
+            }
+        }
+        return messages.size();
+    }
+
+    /**
+     * 从索引中移除被淘汰的消息（仅当索引项确实属于这条消息时）
+     */
+    private void removeFromIndex(SmsMessage message) {
+        long hash = createMessageHash(message);
+        if (messageHashes.get(hash) == message.getTimestamp()) {
+            messageHashes.remove(hash);
+        }
+    }
+
+    /**
+     * 构建消息哈希索引用于快速重复检测
+     */
+    private void buildMessageHashIndex(List<SmsMessage> messages) {
+        messageHashes.clear();
+        for (SmsMessage message : messages) {
+            messageHashes.put(createMessageHash(message), message.getTimestamp());
+        }
+    }
+
+    /**
+     * 创建消息哈希用于重复检测：内容、发送者和时间（秒）的64位指纹，不拼接字符串
+     */
+    private static long createMessageHash(SmsMessage message) {
+        return createMessageHash(message.getContent(), message.getSender(), message.getTimestamp());
+    }
+
+    private static long createMessageHash(String content, String sender, long timestamp) {
+        long hash = ContentFingerprint.add(ContentFingerprint.SEED, content);
+        hash = ContentFingerprint.add(hash, sender);
+        return ContentFingerprint.finish(ContentFingerprint.add(hash, timestamp / 1000));
+    }
+}
@@ -0,0 +1,37 @@
+package com.cht.smsforward.data;
+
+import java.util.List;
+
+/**
+ * Storage backend for persisted SMS messages
+ * Implementations must not depend on the Android runtime beyond SharedPreferences-style
+ * interfaces, so they can be measured by the JVM benchmark module.
+ */
+public interface SmsStorageEngine {
+
+    /**
+     * Short identifier used in logs and benchmark parameters
+     */
+    String getName();
+
+    /**
+     * Read all stored messages (newest first); returns an empty list when nothing is stored
+     */
+    List<SmsMessage> load();
+
+    /**
+     * Persist the given messages (already sorted and trimmed by the caller), replacing the stored list
+     */
+    void save(List<SmsMessage> messages);
+
+    /**
+     * Remove all stored messages
+     */
+    void clear();
+
+    /**
+     * Counter that changes on every save() or clear() of the stored data, including writes made
+     * through another engine instance on the same storage; used to detect external writes
+     */
+    long getGeneration();
+}
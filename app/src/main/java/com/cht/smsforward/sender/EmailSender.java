@@ -2,15 +2,13 @@ package com.cht.smsforward.sender;
 
 import com.cht.smsforward.config.EmailConfig;
 import com.cht.smsforward.config.UnifiedSettingsManager;
+import com.cht.smsforward.util.TimestampFormatter;
 
 import android.content.Context;
 import android.os.AsyncTask;
 import android.util.Log;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
 import java.util.Properties;
 
 import javax.mail.Authenticator;
@@ -33,8 +31,8 @@ public class EmailSender extends MessageSender<EmailConfig> {
     private static final String PREF_TLS_SUCCESS_COUNT = "tls_success_count";
     private android.content.SharedPreferences protocolPrefs;
 
-    public EmailSender(Context context) {
-        super(context, "EmailSender");
+    public EmailSender(Context context, UnifiedSettingsManager settingsManager) {
+        super(context, "EmailSender", settingsManager);
         this.protocolPrefs = context.getSharedPreferences(PREF_PROTOCOL_SUCCESS, Context.MODE_PRIVATE);
     }
 
@@ -233,7 +231,7 @@ public class EmailSender extends MessageSender<EmailConfig> {
                 String testBody = "This is a test email from SMS Forward app.\n\n" +
                         "If you receive this email, your email configuration is working correctly.\n\n" +
                         "Connection method: " + (useSSL ? "SSL (port 465)" : "TLS (port 587)") + "\n" +
-                        "Sent at: " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(new Date());
+                        "Sent at: " + TimestampFormatter.now();
                 message.setText(testBody);
 
                 Log.d(TAG, "Test email message prepared - From: " + config.getSenderEmail() + ", To: " + config.getRecipientEmail());
@@ -346,7 +344,7 @@ public class EmailSender extends MessageSender<EmailConfig> {
         body.append("Verification Code: ").append(verificationCode).append("\n\n");
         body.append("SMS Details:\n");
         body.append("- Sender: ").append(sender != null ? sender : "Unknown").append("\n");
-        body.append("- Received: ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(new Date())).append("\n");
+        body.append("- Received: ").append(TimestampFormatter.now()).append("\n");
         body.append("- Full Message: ").append(smsContent).append("\n\n");
         body.append("This email was automatically sent by SMS Forward app.");
 
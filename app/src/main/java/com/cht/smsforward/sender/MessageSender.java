@@ -24,10 +24,14 @@ public abstract class MessageSender<T extends ForwardingConfig> {
         void onFailure(String error);
     }
     
-    public MessageSender(Context context, String tag) {
+    /**
+     * @param settingsManager the shared settings manager (see SmsForwardApplication); senders never
+     *                        create their own, as that would repeat the Keystore/encrypted prefs setup
+     */
+    public MessageSender(Context context, String tag, UnifiedSettingsManager settingsManager) {
         this.context = context.getApplicationContext();
         this.TAG = tag;
-        this.settingsManager = new UnifiedSettingsManager(context);
+        this.settingsManager = settingsManager;
     }
     
     /**
@@ -35,8 +39,22 @@ public abstract class MessageSender<T extends ForwardingConfig> {
      */
     public void sendVerificationCodeMessage(String verificationCode, String smsContent, String sender, SendCallback callback) {
         try {
-            T config = loadConfig();
-            
+            sendVerificationCodeMessage(loadConfig(), verificationCode, smsContent, sender, callback);
+        } catch (Exception e) {
+            String error = "Failed to initiate " + getServiceName() + " sending: " + e.getMessage();
+            Log.e(TAG, error, e);
+            if (callback != null) {
+                callback.onFailure(error);
+            }
+        }
+    }
+
+    /**
+     * Send verification code message asynchronously with an already loaded configuration
+     * 性能优化：在线程池上执行，不与其他 AsyncTask（包括另一个转发渠道）在默认串行执行器上排队
+     */
+    public void sendVerificationCodeMessage(T config, String verificationCode, String smsContent, String sender, SendCallback callback) {
+        try {
             if (!config.isValid() || !config.isEnabled()) {
                 String error = getServiceName() + " configuration is invalid or disabled";
                 Log.w(TAG, error + " - Config: " + config.toString());
@@ -47,7 +65,8 @@ public abstract class MessageSender<T extends ForwardingConfig> {
             }
             
             Log.d(TAG, "Sending verification code via " + getServiceName() + " - Code: " + verificationCode + ", Sender: " + sender);
-            new SendVerificationTask(config, verificationCode, smsContent, sender, callback).execute();
+            new SendVerificationTask(config, verificationCode, smsContent, sender, callback)
+                    .executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
         } catch (Exception e) {
             String error = "Failed to initiate " + getServiceName() + " sending: " + e.getMessage();
             Log.e(TAG, error, e);
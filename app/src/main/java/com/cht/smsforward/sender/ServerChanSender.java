@@ -2,6 +2,7 @@ package com.cht.smsforward.sender;
 
 import com.cht.smsforward.config.ServerChanConfig;
 import com.cht.smsforward.config.UnifiedSettingsManager;
+import com.cht.smsforward.util.TimestampFormatter;
 
 import android.content.Context;
 import android.os.AsyncTask;
@@ -13,9 +14,6 @@ import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLEncoder;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
 
 /**
  * Server酱 sender utility for sending verification codes via Server酱 API
@@ -26,8 +24,8 @@ public class ServerChanSender extends MessageSender<ServerChanConfig> {
     private static final int CONNECTION_TIMEOUT = 10000; // 10 seconds
     private static final int READ_TIMEOUT = 15000; // 15 seconds
 
-    public ServerChanSender(Context context) {
-        super(context, "ServerChanSender");
+    public ServerChanSender(Context context, UnifiedSettingsManager settingsManager) {
+        super(context, "ServerChanSender", settingsManager);
     }
 
     /**
@@ -85,7 +83,7 @@ public class ServerChanSender extends MessageSender<ServerChanConfig> {
             String title = "SMS Forward - 测试消息";
             String content = "这是来自 SMS Forward 应用的测试消息。\n\n" +
                     "如果您收到此消息，说明您的 Server酱 配置正常工作。\n\n" +
-                    "发送时间: " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(new Date());
+                    "发送时间: " + TimestampFormatter.now();
 
             return sendToServerChan(config.getApiUrl(), title, content);
 
@@ -106,7 +104,7 @@ public class ServerChanSender extends MessageSender<ServerChanConfig> {
         content.append("📱 收到新的短信验证码\n\n");
         content.append("🔢 验证码: ").append(verificationCode).append("\n");
         content.append("📞 发送方: ").append(sender != null ? sender : "未知").append("\n");
-        content.append("⏰ 时间: ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault()).format(new Date())).append("\n\n");
+        content.append("⏰ 时间: ").append(TimestampFormatter.now()).append("\n\n");
         content.append("📄 完整内容:\n").append(smsContent);
         
         return content.toString();
@@ -0,0 +1,125 @@
+package com.cht.smsforward.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers how far each conversation notification has been processed (pure Java)
+ * A re-posted MessagingStyle notification repeats the earlier messages of the conversation; only
+ * messages newer than the last processed one are returned. Per conversation the tracker keeps the
+ * newest timestamp seen and the fingerprints of the messages at that timestamp, so messages that
+ * share a timestamp are still told apart. Conversations are kept in a small LRU.
+ * The first time a conversation is seen (or after it was evicted) the tracker has no progress for
+ * it, so each message is checked against the stored messages instead (see History): messages newer
+ * than the newest stored one, or not stored at all, are returned. A first notification that already
+ * holds several new codes returns all of them.
+ */
+public class ConversationTracker {
+
+    public static final int DEFAULT_CAPACITY = 32;
+
+    /**
+     * Messages already handled before the tracker saw the conversation (the persisted message store)
+     */
+    public interface History {
+
+        /**
+         * Timestamp of the newest stored message, or Long.MIN_VALUE when nothing is stored
+         */
+        long newestTimestamp();
+
+        /**
+         * Whether a message with this text, sender and timestamp is stored
+         */
+        boolean contains(String text, String sender, long timestamp);
+    }
+
+    private static final class Progress {
+        long lastTimestamp = Long.MIN_VALUE;
+        long[] lastFingerprints = new long[0];
+    }
+
+    private final Map<String, Progress> conversations;
+
+    public ConversationTracker() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ConversationTracker(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.conversations = new LinkedHashMap<String, Progress>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Progress> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Return the messages of this conversation that were not returned before, and mark them as seen
+     * @param conversationKey notification key identifying the conversation
+     * @param messages all messages currently in the notification, oldest first
+     * @param history stored messages, consulted only when the conversation has no progress yet
+     */
+    public synchronized List<NotificationMessage> selectNew(String conversationKey, List<NotificationMessage> messages,
+                                                            History history) {
+        if (messages.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Progress progress = conversations.get(conversationKey);
+
+        List<NotificationMessage> fresh = new ArrayList<>();
+        long newest = progress != null ? progress.lastTimestamp : Long.MIN_VALUE;
+        // 首次见到该会话：比存储中最新的消息更新、或者不在存储索引中的消息才是新消息
+        long newestStored = progress == null ? history.newestTimestamp() : Long.MIN_VALUE;
+        for (NotificationMessage message : messages) {
+            if (progress != null) {
+                if (message.getTimestamp() > progress.lastTimestamp ||
+                        (message.getTimestamp() == progress.lastTimestamp &&
+                         !contains(progress.lastFingerprints, message.fingerprint()))) {
+                    fresh.add(message);
+                }
+            } else if (message.getTimestamp() > newestStored ||
+                       !history.contains(message.getText(), message.getSender(), message.getTimestamp())) {
+                fresh.add(message);
+            }
+            newest = Math.max(newest, message.getTimestamp());
+        }
+
+        if (progress == null) {
+            progress = new Progress();
+            conversations.put(conversationKey, progress);
+        }
+        if (newest != progress.lastTimestamp) {
+            progress.lastTimestamp = newest;
+            progress.lastFingerprints = new long[0];
+        }
+        for (NotificationMessage message : messages) {
+            if (message.getTimestamp() == newest && !contains(progress.lastFingerprints, message.fingerprint())) {
+                long[] grown = new long[progress.lastFingerprints.length + 1];
+                System.arraycopy(progress.lastFingerprints, 0, grown, 0, progress.lastFingerprints.length);
+                grown[grown.length - 1] = message.fingerprint();
+                progress.lastFingerprints = grown;
+            }
+        }
+        return fresh;
+    }
+
+    public synchronized int size() {
+        return conversations.size();
+    }
+
+    private static boolean contains(long[] values, long value) {
+        for (long v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
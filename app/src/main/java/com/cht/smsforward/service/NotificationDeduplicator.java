@@ -0,0 +1,60 @@
+package com.cht.smsforward.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Front-of-pipeline duplicate filter for re-posted notifications (pure Java)
+ * Messaging apps re-post the same notification when they regroup, update or re-alert. The filter
+ * remembers the last fingerprint (message time + content) seen for each notification key in a small
+ * LRU; a post whose key and fingerprint both match is dropped before any parsing or extraction.
+ */
+public class NotificationDeduplicator {
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final Map<String, Long> lastFingerprints;
+    private long duplicateCount;
+
+    public NotificationDeduplicator() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public NotificationDeduplicator(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.lastFingerprints = new LinkedHashMap<String, Long>(capacity * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Record a post and report whether the same notification was already seen with this fingerprint
+     * @param key StatusBarNotification key (unique per package/id/tag/user)
+     * @param fingerprint fingerprint of the notification's message time and copied content
+     * @return true if the post is a duplicate and should be dropped
+     */
+    public synchronized boolean isDuplicate(String key, long fingerprint) {
+        if (key == null) {
+            return false;
+        }
+        Long previous = lastFingerprints.put(key, fingerprint);
+        if (previous != null && previous == fingerprint) {
+            duplicateCount++;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized int size() {
+        return lastFingerprints.size();
+    }
+
+    public synchronized long getDuplicateCount() {
+        return duplicateCount;
+    }
+}
@@ -0,0 +1,39 @@
+package com.cht.smsforward.service;
+
+import com.cht.smsforward.util.ContentFingerprint;
+
+/**
+ * One message unpacked from a MessagingStyle notification (plain strings only)
+ * Conversation notifications carry several messages, each with its own sender and timestamp.
+ */
+public final class NotificationMessage {
+
+    private final String text;
+    private final String sender;
+    private final long timestamp;
+
+    public NotificationMessage(String text, String sender, long timestamp) {
+        this.text = text;
+        this.sender = sender;
+        this.timestamp = timestamp;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Display name of the sender, or null when the notification does not name one
+     */
+    public String getSender() {
+        return sender;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    long fingerprint() {
+        return ContentFingerprint.of(text, sender);
+    }
+}
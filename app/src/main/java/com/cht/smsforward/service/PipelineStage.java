@@ -0,0 +1,209 @@
+package com.cht.smsforward.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One stage of the SMS ingestion pipeline: a bounded queue drained by a dedicated worker thread (pure Java)
+ * Items are processed in submission order. offer() never blocks; when the queue is full the item is
+ * rejected and counted. Latency is measured from offer() to the end of the handler.
+ */
+public class PipelineStage<T> {
+
+    // 工作线程定期检查是否已停止（不使用 interrupt，避免打断处理中的 I/O）
+    private static final long STOP_POLL_MILLIS = 200;
+
+    /**
+     * Work done for each item on the stage's worker thread
+     */
+    public interface Handler<T> {
+        void handle(T item) throws Exception;
+    }
+
+    /**
+     * Called on the worker thread when the handler throws
+     */
+    public interface ErrorHandler<T> {
+        void onError(T item, Exception error);
+    }
+
+    private static final class Envelope<T> {
+        final T item;
+        final long enqueuedNanos;
+
+        Envelope(T item, long enqueuedNanos) {
+            this.item = item;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    private final String name;
+    private final int capacity;
+    private final BlockingQueue<Envelope<T>> queue;
+    private final Handler<T> handler;
+    private final ErrorHandler<T> errorHandler;
+    private final Thread worker;
+    private volatile boolean stopped;
+
+    // 统计计数器
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong totalServiceNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+    private volatile long startNanos;
+
+    public PipelineStage(String name, int capacity, Handler<T> handler, ErrorHandler<T> errorHandler) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.handler = handler;
+        this.errorHandler = errorHandler;
+        this.worker = new Thread(this::runWorker, "SmsPipeline-" + name);
+    }
+
+    public void start() {
+        startNanos = System.nanoTime();
+        worker.start();
+    }
+
+    /**
+     * Stop accepting items; items already queued are still processed before the worker exits
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Wait until the worker has exited (after stop())
+     */
+    public boolean awaitTermination(long timeoutMillis) throws InterruptedException {
+        worker.join(timeoutMillis);
+        return !worker.isAlive();
+    }
+
+    /**
+     * Queue an item without blocking
+     * @return false if the stage is stopped or its queue is full
+     */
+    public boolean offer(T item) {
+        if (stopped || !queue.offer(new Envelope<>(item, System.nanoTime()))) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        submitted.incrementAndGet();
+        return true;
+    }
+
+    private void runWorker() {
+        while (true) {
+            Envelope<T> envelope;
+            try {
+                envelope = queue.poll(STOP_POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (envelope != null) {
+                process(envelope);
+            } else if (stopped) {
+                return; // stop() 之后已入队的条目都已处理完
+            }
+        }
+    }
+
+    private void process(Envelope<T> envelope) {
+        long serviceStart = System.nanoTime();
+        try {
+            handler.handle(envelope.item);
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            if (errorHandler != null) {
+                try {
+                    errorHandler.onError(envelope.item, e);
+                } catch (RuntimeException ignored) {
+                    // 错误处理本身失败时不能终止工作线程
+                }
+            }
+        }
+        long end = System.nanoTime();
+        long latency = end - envelope.enqueuedNanos;
+        totalLatencyNanos.addAndGet(latency);
+        totalServiceNanos.addAndGet(end - serviceStart);
+        long max;
+        while (latency > (max = maxLatencyNanos.get()) && !maxLatencyNanos.compareAndSet(max, latency)) {
+            // retry
+        }
+        completed.incrementAndGet();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * Average time from offer() to the end of processing (queue wait + handler)
+     */
+    public long getAverageLatencyMicros() {
+        long count = completed.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalLatencyNanos.get() / count);
+    }
+
+    /**
+     * Average time spent in the handler
+     */
+    public long getAverageServiceMicros() {
+        long count = completed.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalServiceNanos.get() / count);
+    }
+
+    public long getMaxLatencyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxLatencyNanos.get());
+    }
+
+    /**
+     * Completed items per second since start()
+     */
+    public double getThroughputPerSecond() {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed <= 0 ? 0 : completed.get() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return name + "{completed=" + completed.get() + ", failed=" + failed.get() +
+                ", rejected=" + rejected.get() + ", queued=" + queue.size() + "/" + capacity +
+                ", avgLatencyUs=" + getAverageLatencyMicros() + ", avgServiceUs=" + getAverageServiceMicros() +
+                ", maxLatencyUs=" + getMaxLatencyMicros() + "}";
+    }
+}
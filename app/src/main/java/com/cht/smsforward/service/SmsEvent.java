@@ -0,0 +1,60 @@
+package com.cht.smsforward.service;
+
+import com.cht.smsforward.data.SmsMessage;
+import com.cht.smsforward.model.ForwardStatus;
+
+/**
+ * In-process notification that a stored SMS was added or its forward status changed
+ * The event references the SmsMessage instance that was stored (no copy). A status change stores a
+ * new instance (copy-on-write), so status events carry that new version; they also carry its forward
+ * status and error.
+ */
+public final class SmsEvent {
+
+    public enum Type {
+        MESSAGE_ADDED,
+        STATUS_CHANGED
+    }
+
+    private final Type type;
+    private final SmsMessage message;
+    private final ForwardStatus forwardStatus;
+    private final String forwardError;
+
+    private SmsEvent(Type type, SmsMessage message, ForwardStatus forwardStatus, String forwardError) {
+        this.type = type;
+        this.message = message;
+        this.forwardStatus = forwardStatus;
+        this.forwardError = forwardError;
+    }
+
+    public static SmsEvent messageAdded(SmsMessage message) {
+        return new SmsEvent(Type.MESSAGE_ADDED, message, message.getForwardStatus(), message.getForwardError());
+    }
+
+    public static SmsEvent statusChanged(SmsMessage message) {
+        return new SmsEvent(Type.STATUS_CHANGED, message, message.getForwardStatus(), message.getForwardError());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public SmsMessage getMessage() {
+        return message;
+    }
+
+    public ForwardStatus getForwardStatus() {
+        return forwardStatus;
+    }
+
+    public String getForwardError() {
+        return forwardError;
+    }
+
+    @Override
+    public String toString() {
+        return "SmsEvent{" + type + ", sender='" + message.getSender() + '\'' +
+                ", timestamp=" + message.getTimestamp() + ", forwardStatus=" + forwardStatus + "}";
+    }
+}
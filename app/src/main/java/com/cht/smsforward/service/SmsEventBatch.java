@@ -0,0 +1,132 @@
+package com.cht.smsforward.service;
+
+import com.cht.smsforward.data.SmsMessage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The net effect of one frame of SmsEvents, so the UI applies a single diff (pure Java)
+ * Each message appears at most once: as added (bound with its latest state) or as changed
+ * (only its forward status needs rebinding), however many status events it produced.
+ * Status changes are copy-on-write, so the events of one message carry different instances; they
+ * are matched by timestamp, sender and content, and the instance of the last event is kept.
+ */
+public final class SmsEventBatch {
+
+    private final int eventCount;
+    private final List<SmsMessage> addedMessages;
+    private final List<SmsMessage> changedMessages;
+    private final String lastError;
+
+    private SmsEventBatch(int eventCount, List<SmsMessage> addedMessages, List<SmsMessage> changedMessages,
+                          String lastError) {
+        this.eventCount = eventCount;
+        this.addedMessages = addedMessages;
+        this.changedMessages = changedMessages;
+        this.lastError = lastError;
+    }
+
+    /**
+     * Identity of a stored message across its status versions
+     */
+    private static final class MessageKey {
+        final long timestamp;
+        final String sender;
+        final String content;
+
+        MessageKey(SmsMessage message) {
+            this.timestamp = message.getTimestamp();
+            this.sender = message.getSender();
+            this.content = message.getContent();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof MessageKey)) {
+                return false;
+            }
+            MessageKey other = (MessageKey) o;
+            return timestamp == other.timestamp && Objects.equals(sender, other.sender) &&
+                   Objects.equals(content, other.content);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (int) (timestamp ^ (timestamp >>> 32));
+            result = 31 * result + Objects.hashCode(sender);
+            return 31 * result + Objects.hashCode(content);
+        }
+    }
+
+    /**
+     * Coalesce events (oldest first) by message, keeping the newest version of each
+     */
+    public static SmsEventBatch of(List<SmsEvent> events) {
+        Map<MessageKey, Integer> added = new HashMap<>();
+        List<SmsMessage> addedMessages = new ArrayList<>();
+        for (SmsEvent event : events) {
+            if (event.getType() == SmsEvent.Type.MESSAGE_ADDED) {
+                MessageKey key = new MessageKey(event.getMessage());
+                if (!added.containsKey(key)) {
+                    added.put(key, addedMessages.size());
+                    addedMessages.add(event.getMessage());
+                }
+            }
+        }
+
+        Map<MessageKey, Integer> changed = new HashMap<>();
+        List<SmsMessage> changedMessages = new ArrayList<>();
+        String lastError = null;
+        for (SmsEvent event : events) {
+            if (event.getType() != SmsEvent.Type.STATUS_CHANGED) {
+                continue;
+            }
+            SmsMessage message = event.getMessage();
+            MessageKey key = new MessageKey(message);
+            // 同一帧内新增的消息按最新版本完整绑定，不再单独刷新状态
+            Integer index = added.get(key);
+            if (index != null) {
+                addedMessages.set(index, message);
+            } else if ((index = changed.get(key)) != null) {
+                changedMessages.set(index, message);
+            } else {
+                changed.put(key, changedMessages.size());
+                changedMessages.add(message);
+            }
+            String error = event.getForwardError();
+            if (error != null && !error.isEmpty() && !"disabled".equals(error)) {
+                lastError = error;
+            }
+        }
+        return new SmsEventBatch(events.size(), addedMessages, changedMessages, lastError);
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Messages stored in this frame, in arrival order (newest version of each)
+     */
+    public List<SmsMessage> getAddedMessages() {
+        return addedMessages;
+    }
+
+    /**
+     * Newest versions of previously added messages whose forward status changed in this frame
+     */
+    public List<SmsMessage> getChangedMessages() {
+        return changedMessages;
+    }
+
+    /**
+     * The most recent forwarding error worth showing to the user, or null
+     */
+    public String getLastError() {
+        return lastError;
+    }
+}
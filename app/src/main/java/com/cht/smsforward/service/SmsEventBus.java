@@ -0,0 +1,96 @@
+package com.cht.smsforward.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Typed in-process event dispatcher from the SMS pipeline to the UI (pure Java)
+ * post() may be called from any thread. Events are collected until the next frame; the first event
+ * after a delivery schedules exactly one frame callback, which hands every pending event to each
+ * subscriber as one ordered batch. The Android app schedules frames with Choreographer on the main
+ * thread (see SmsForwardApplication).
+ */
+public class SmsEventBus {
+
+    /**
+     * Receives the events posted since the previous frame, oldest first
+     */
+    public interface Subscriber {
+        void onSmsEvents(List<SmsEvent> events);
+    }
+
+    /**
+     * Runs the given callback once, on the delivery thread, at the next frame
+     */
+    public interface FrameScheduler {
+        void scheduleFrame(Runnable frame);
+    }
+
+    private final FrameScheduler scheduler;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Object lock = new Object();
+    private List<SmsEvent> pending = new ArrayList<>();
+    private boolean frameScheduled;
+
+    // 统计计数器
+    private final AtomicLong postedCount = new AtomicLong();
+    private final AtomicLong frameCount = new AtomicLong();
+
+    public SmsEventBus(FrameScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public void subscribe(Subscriber subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    public void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Queue an event for the next frame
+     */
+    public void post(SmsEvent event) {
+        postedCount.incrementAndGet();
+        synchronized (lock) {
+            pending.add(event);
+            if (frameScheduled) {
+                return; // 本帧已安排投递，合并到同一批
+            }
+            frameScheduled = true;
+        }
+        scheduler.scheduleFrame(this::deliverPending);
+    }
+
+    private void deliverPending() {
+        List<SmsEvent> batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = new ArrayList<>();
+            frameScheduled = false;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        frameCount.incrementAndGet();
+        List<SmsEvent> events = Collections.unmodifiableList(batch);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.onSmsEvents(events);
+        }
+    }
+
+    public long getPostedCount() {
+        return postedCount.get();
+    }
+
+    /**
+     * Number of frames in which events were delivered
+     */
+    public long getFrameCount() {
+        return frameCount.get();
+    }
+}
@@ -0,0 +1,33 @@
+package com.cht.smsforward.service;
+
+import android.os.Parcelable;
+
+/**
+ * Lightweight copy of the notification fields needed for SMS ingestion
+ * Created on the listener's main thread (plain strings plus the raw MessagingStyle message bundles,
+ * no Notification reference) and handed to the ingestion thread for everything else.
+ */
+final class SmsNotificationEvent {
+
+    final String key;
+    final String packageName;
+    final long postTime;
+    final String title;
+    final String text;
+    final String bigText;
+    final String subText;
+    // MessagingStyle 通知的 EXTRA_MESSAGES（每条消息一个 Bundle，旧的在前），由解析阶段展开；普通通知为 null
+    final Parcelable[] rawMessages;
+
+    SmsNotificationEvent(String key, String packageName, long postTime, String title, String text,
+                         String bigText, String subText, Parcelable[] rawMessages) {
+        this.key = key;
+        this.packageName = packageName;
+        this.postTime = postTime;
+        this.title = title;
+        this.text = text;
+        this.bigText = bigText;
+        this.subText = subText;
+        this.rawMessages = rawMessages;
+    }
+}
@@ -1,5 +1,6 @@
 package com.cht.smsforward.service;
 
+import com.cht.smsforward.SmsForwardApplication;
 import com.cht.smsforward.config.EmailConfig;
 import com.cht.smsforward.config.ForwardingConfig;
 import com.cht.smsforward.config.ServerChanConfig;
@@ -7,25 +8,34 @@ import com.cht.smsforward.config.UnifiedSettingsManager;
 import com.cht.smsforward.data.MessageQueue;
 import com.cht.smsforward.data.SmsDataManager;
 import com.cht.smsforward.data.SmsMessage;
+import com.cht.smsforward.model.ForwardStatus;
 import com.cht.smsforward.sender.EmailSender;
 import com.cht.smsforward.sender.MessageSender;
 import com.cht.smsforward.sender.ServerChanSender;
+import com.cht.smsforward.util.ContentFingerprint;
+import com.cht.smsforward.util.ExtractionRulesLoader;
 import com.cht.smsforward.util.VerificationCodeExtractor;
 
 import android.app.ActivityManager;
 import android.app.Notification;
 import android.content.Context;
-import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Build;
 import android.os.Bundle;
+import android.os.Parcelable;
 import android.service.notification.NotificationListenerService;
 import android.service.notification.StatusBarNotification;
 import android.text.TextUtils;
 import android.util.Log;
 
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.Person;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * NotificationListenerService to intercept SMS notifications from system SMS apps
@@ -36,20 +46,45 @@ public class SmsNotificationListener extends NotificationListenerService {
     private static final String TAG = "SmsNotificationListener";
 
     private SmsDataManager smsDataManager;
-    private EmailSender emailSender;
-    private ServerChanSender serverChanSender;
     private MessageQueue messageQueue;
+    private ExtractionRulesLoader rulesLoader;
+
+    // 接收流水线：解析 → 提取 → 持久化 / 转发，每个阶段一个有界队列和一个工作线程
+    // 提取出主验证码后立即进入转发阶段，不等待持久化完成
+    private static final int STAGE_CAPACITY = 64;
+    // 服务停止时（主线程）等待每个阶段排空的上限，四个阶段合计不超过 6 秒
+    private static final long STAGE_DRAIN_TIMEOUT_MILLIS = 1500;
+    private PipelineStage<SmsNotificationEvent> parseStage;
+    private PipelineStage<ParsedSms> extractStage;
+    private PipelineStage<Runnable> persistStage;
+    private PipelineStage<SmsMessage> dispatchStage;
+    // 写入阶段已在服务停止时排空退出（之后到达的状态更新直接保存）
+    private volatile boolean persistDrained;
+
+    // 运行时可配置的短信应用包名（SharedPreferences 中的 string set，未配置时使用默认列表）
+    public static final String PREFS_NAME = "sms_filter";
+    public static final String KEY_SMS_PACKAGES = "sms_packages";
+
+    private final SmsPackageFilter packageFilter = new SmsPackageFilter();
+    private final NotificationDeduplicator deduplicator = new NotificationDeduplicator();
+    private final ConversationTracker conversationTracker = new ConversationTracker();
+    // 会话首次出现时，用已存储的消息判断通知里哪些消息已经处理过
+    private final ConversationTracker.History storedMessages = new ConversationTracker.History() {
+        @Override
+        public long newestTimestamp() {
+            return smsDataManager.getNewestTimestamp();
+        }
 
-    // Common SMS app package names for Android and Meizu devices
-    private static final String[] SMS_PACKAGES = {
-        "com.android.mms",           // Default Android Messages
-        "com.google.android.apps.messaging", // Google Messages
-        "com.meizu.flyme.mms",       // Meizu SMS app (primary target)
-        "com.meizu.mms",             // Alternative Meizu SMS package
-        "com.samsung.android.messaging", // Samsung Messages
-        "com.android.messaging",     // AOSP Messaging
-        "com.sonyericsson.conversations", // Sony Messages
-        "com.htc.sense.mms"          // HTC Messages
+        @Override
+        public boolean contains(String text, String sender, long timestamp) {
+            return smsDataManager.isStored(text, sender, timestamp);
+        }
+    };
+    private SharedPreferences filterPrefs;
+    private final SharedPreferences.OnSharedPreferenceChangeListener filterPrefsListener = (prefs, key) -> {
+        if (KEY_SMS_PACKAGES.equals(key)) {
+            applyPackageFilter(prefs);
+        }
     };
     
     @Override
@@ -57,67 +92,232 @@ public class SmsNotificationListener extends NotificationListenerService {
         super.onCreate();
         Log.d(TAG, "=== SMS NOTIFICATION LISTENER SERVICE CREATED ===");
         Log.d(TAG, "Service package: " + getPackageName());
-        Log.d(TAG, "Supported SMS packages: " + java.util.Arrays.toString(SMS_PACKAGES));
+
+        // 包名过滤器：启动时读取配置，配置变化时立即生效
+        filterPrefs = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        applyPackageFilter(filterPrefs);
+        filterPrefs.registerOnSharedPreferenceChangeListener(filterPrefsListener);
 
         // Initialize components for direct processing
-        smsDataManager = new SmsDataManager(this);
-        emailSender = new EmailSender(this);
-        serverChanSender = new ServerChanSender(this);
+        smsDataManager = SmsForwardApplication.from(this).getDataManager();
         messageQueue = new MessageQueue(this);
+
+        // Versioned extraction rules (bundled asset or runtime override file), parsed on the extract
+        // thread on first use and again only after the override file changes
+        rulesLoader = new ExtractionRulesLoader(this);
+        rulesLoader.startWatching();
+
+        startPipeline();
+    }
+
+    @Override
+    public void onDestroy() {
+        if (filterPrefs != null) {
+            filterPrefs.unregisterOnSharedPreferenceChangeListener(filterPrefsListener);
+        }
+        stopPipeline();
+        if (rulesLoader != null) {
+            rulesLoader.stopWatching();
+        }
+        super.onDestroy();
+    }
+
+    /**
+     * Create and start the ingestion stages
+     */
+    private void startPipeline() {
+        parseStage = new PipelineStage<>("parse", STAGE_CAPACITY, this::parse,
+                (event, e) -> Log.e(TAG, "Error parsing SMS notification", e));
+        extractStage = new PipelineStage<>("extract", STAGE_CAPACITY, this::extract, (parsed, e) -> {
+            Log.e(TAG, "Error processing SMS message", e);
+            // Fallback: queue the message for later processing
+            messageQueue.queueMessage(parsed.content, parsed.sender, parsed.packageName, parsed.timestamp,
+                                      new ArrayList<>(), null);
+            Log.d(TAG, "Message queued for later processing due to error");
+        });
+        // 单一写入线程：新增和所有状态更新按提交顺序落盘
+        persistStage = new PipelineStage<>("persist", STAGE_CAPACITY, Runnable::run,
+                (task, e) -> Log.e(TAG, "Error persisting SMS message", e));
+        dispatchStage = new PipelineStage<>("dispatch", STAGE_CAPACITY, this::dispatch, (smsMessage, e) -> {
+            Log.e(TAG, "Error forwarding SMS message", e);
+            messageQueue.queueMessage(smsMessage.getContent(), smsMessage.getSender(), smsMessage.getPackageName(),
+                                      smsMessage.getTimestamp(), smsMessage.getVerificationCodes(),
+                                      smsMessage.getPrimaryVerificationCode());
+        });
+
+        persistStage.start();
+        dispatchStage.start();
+        extractStage.start();
+        parseStage.start();
+    }
+
+    /**
+     * Stop accepting notifications, then stop and drain the stages in pipeline order
+     * Each stage finishes its queued items while the stages after it still accept their output.
+     */
+    private void stopPipeline() {
+        if (parseStage == null) {
+            return;
+        }
+        drain(parseStage);
+        drain(extractStage);
+        drain(dispatchStage);
+        persistDrained = drain(persistStage);
+        logPipelineStats();
+        // 模板缓存命中率只在服务停止时汇总输出，不在每条短信上记录
+        Log.d(TAG, "Template cache - hits: " + VerificationCodeExtractor.getTemplateCache().getHitCount() +
+              ", misses: " + VerificationCodeExtractor.getTemplateCache().getMissCount());
+    }
+
+    /**
+     * Stop a stage and wait (bounded) until its worker has processed everything queued
+     * @return true if the worker exited
+     */
+    private boolean drain(PipelineStage<?> stage) {
+        stage.stop();
+        try {
+            if (stage.awaitTermination(STAGE_DRAIN_TIMEOUT_MILLIS)) {
+                return true;
+            }
+            Log.w(TAG, "Pipeline stage '" + stage.getName() + "' did not drain within " +
+                  STAGE_DRAIN_TIMEOUT_MILLIS + "ms (queue " + stage.getQueueSize() + ")");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Stage counters and latencies, logged once when the pipeline stops (rejections are logged by offer())
+     */
+    private void logPipelineStats() {
+        Log.d(TAG, "Pipeline stats: " + parseStage + ", " + extractStage + ", " + persistStage + ", " + dispatchStage);
+    }
+
+    /**
+     * Hand an item to the next stage, logging when the stage is full or stopped
+     */
+    private <T> boolean offer(PipelineStage<T> stage, T item) {
+        if (stage.offer(item)) {
+            return true;
+        }
+        Log.w(TAG, "Pipeline stage '" + stage.getName() + "' rejected item (queue " +
+              stage.getQueueSize() + "/" + stage.getCapacity() + ", rejected " + stage.getRejectedCount() + ")");
+        return false;
     }
     
     @Override
     public void onNotificationPosted(StatusBarNotification sbn) {
         super.onNotificationPosted(sbn);
 
-        Log.e(TAG, "=== NOTIFICATION POSTED ===");
-        Log.e(TAG, "Package: " + sbn.getPackageName());
-        Log.e(TAG, "ID: " + sbn.getId());
-        Log.e(TAG, "Tag: " + sbn.getTag());
-        Log.e(TAG, "Post time: " + sbn.getPostTime());
+        // 性能优化：设备上所有通知都会经过这里，非短信通知只做一次哈希查找后立即返回（无分配、无日志）
+        if (!packageFilter.accepts(sbn.getPackageName())) {
+            return;
+        }
+
+        // 主线程上只复制需要的字段，提取、保存和广播都交给接收线程，系统不会看到缓慢的回调
+        Notification notification = sbn.getNotification();
+        if (notification == null || notification.extras == null) {
+            return;
+        }
+        // 分组摘要（"N 条新消息"）只是汇总，短信内容在各自的子通知里
+        if ((notification.flags & Notification.FLAG_GROUP_SUMMARY) != 0) {
+            return;
+        }
+        Bundle extras = notification.extras;
+        String title = getStringFromExtras(extras, Notification.EXTRA_TITLE);
+        String text = getStringFromExtras(extras, Notification.EXTRA_TEXT);
+        String bigText = getStringFromExtras(extras, Notification.EXTRA_BIG_TEXT);
+        String subText = getStringFromExtras(extras, Notification.EXTRA_SUB_TEXT);
 
-        // Check if notification is from an SMS app
-        if (!isSmsNotification(sbn)) {
-            Log.e(TAG, "Not an SMS notification - ignoring package: " + sbn.getPackageName());
+        // 同一通知被重新发布（更新、重新分组、再次提醒）且内容未变时，在解析之前丢弃
+        // 使用 notification.when（消息时间）而不是 postTime：每次重新发布 postTime 都会变化
+        if (deduplicator.isDuplicate(sbn.getKey(), fingerprint(notification.when, title, text, bigText, subText))) {
+            Log.d(TAG, "Duplicate notification re-post dropped: " + sbn.getKey() +
+                  " (total " + deduplicator.getDuplicateCount() + ")");
             return;
         }
 
-        Log.e(TAG, "✅ SMS notification detected from: " + sbn.getPackageName());
+        // MessagingStyle 消息只传递原始 Bundle 数组，在解析线程上展开
+        offer(parseStage, new SmsNotificationEvent(sbn.getKey(), sbn.getPackageName(), sbn.getPostTime(),
+                title, text, bigText, subText, extras.getParcelableArray(NotificationCompat.EXTRA_MESSAGES)));
+    }
+
+    private static long fingerprint(long when, String title, String text, String bigText, String subText) {
+        long hash = ContentFingerprint.add(ContentFingerprint.SEED, when);
+        hash = ContentFingerprint.add(hash, title);
+        hash = ContentFingerprint.add(hash, text);
+        hash = ContentFingerprint.add(hash, bigText);
+        return ContentFingerprint.finish(ContentFingerprint.add(hash, subText));
+    }
+
+    /**
+     * Parse stage: validate the copied notification and pull out content and sender
+     */
+    private void parse(SmsNotificationEvent event) {
+        Log.e(TAG, "=== SMS NOTIFICATION POSTED ===");
+        Log.e(TAG, "Package: " + event.packageName);
+        Log.e(TAG, "Post time: " + event.postTime);
 
         // Additional SMS validation checks
-        if (!isValidSmsNotification(sbn)) {
+        if (!isValidSmsNotification(event)) {
             Log.e(TAG, "Notification filtered out - not a valid SMS notification");
             return;
         }
 
         Log.e(TAG, "✅ Valid SMS notification - extracting content");
 
+        // MessagingStyle 会话通知：逐条处理，并且只处理该会话中之前没有处理过的消息
+        List<NotificationMessage> messages = unpackMessages(event);
+        if (!messages.isEmpty()) {
+            List<NotificationMessage> fresh = conversationTracker.selectNew(event.key, messages, storedMessages);
+            Log.d(TAG, "Conversation notification - " + fresh.size() + " new of " + messages.size() + " messages");
+            for (NotificationMessage message : fresh) {
+                offer(extractStage, new ParsedSms(message.getText(), message.getSender(), event.packageName,
+                                                  message.getTimestamp()));
+            }
+            return;
+        }
+
         // Extract SMS content from notification
-        String smsContent = extractSmsContent(sbn);
+        String smsContent = extractSmsContent(event);
         if (smsContent != null && !smsContent.isEmpty()) {
             Log.e(TAG, "✅ SMS content extracted: " + smsContent);
 
             // Extract sender information
-            String sender = extractSender(sbn);
+            String sender = extractSender(event);
 
-            // Extract verification codes
-            List<String> verificationCodes = VerificationCodeExtractor.extractVerificationCodes(smsContent);
-            String primaryCode = VerificationCodeExtractor.getPrimaryVerificationCode(smsContent);
+            offer(extractStage, new ParsedSms(smsContent, sender, event.packageName, event.postTime));
+        } else {
+            Log.e(TAG, "❌ No SMS content could be extracted from notification");
+        }
+    }
 
-            if (!verificationCodes.isEmpty()) {
-                Log.e(TAG, "✅ Verification codes found: " + verificationCodes.toString());
-                Log.e(TAG, "✅ Primary verification code: " + primaryCode);
-            } else {
-                Log.e(TAG, "⚠️ No verification codes found in SMS");
-            }
+    /**
+     * Extract stage: find verification codes, then fan out to persistence and forwarding
+     */
+    private void extract(ParsedSms parsed) {
+        String smsContent = parsed.content;
+        String sender = parsed.sender;
+
+        // Pick up rule file changes without restarting the service (no file access unless it changed)
+        rulesLoader.reloadIfPending();
 
-            // Process message with single streamlined path
-            Log.e(TAG, "🔄 Processing SMS message");
-            processSmsMessage(smsContent, sender, sbn.getPackageName(), sbn.getPostTime(),
-                            verificationCodes, primaryCode);
+        // Extract verification codes with the rules selected for this sender
+        List<String> verificationCodes = VerificationCodeExtractor.extractVerificationCodes(smsContent, sender);
+        String primaryCode = VerificationCodeExtractor.selectPrimaryCode(verificationCodes);
+
+        if (!verificationCodes.isEmpty()) {
+            Log.e(TAG, "✅ Verification codes found: " + verificationCodes.toString());
+            Log.e(TAG, "✅ Primary verification code: " + primaryCode);
         } else {
-            Log.e(TAG, "❌ No SMS content could be extracted from notification");
+            Log.e(TAG, "⚠️ No verification codes found in SMS");
         }
+
+        // Process message with single streamlined path
+        Log.e(TAG, "🔄 Processing SMS message");
+        processSmsMessage(smsContent, sender, parsed.packageName, parsed.timestamp,
+                        verificationCodes, primaryCode);
     }
     
     @Override
@@ -127,18 +327,25 @@ public class SmsNotificationListener extends NotificationListenerService {
     }
     
     /**
-     * Check if the notification is from an SMS application
+     * Apply the configured SMS package list (defaults when nothing is configured)
      */
-    private boolean isSmsNotification(StatusBarNotification sbn) {
-        String packageName = sbn.getPackageName();
+    private void applyPackageFilter(SharedPreferences prefs) {
+        Set<String> configured = prefs.getStringSet(KEY_SMS_PACKAGES, null);
+        packageFilter.setPackages(configured);
+        Log.d(TAG, "Supported SMS packages: " + packageFilter.getPackages());
+    }
 
-        for (String smsPackage : SMS_PACKAGES) {
-            if (smsPackage.equals(packageName)) {
-                return true;
-            }
+    /**
+     * Configure the SMS app packages whose notifications are processed; null or empty restores the defaults
+     * Takes effect immediately in the running service.
+     */
+    public static void setSmsPackages(Context context, Set<String> packages) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (packages == null || packages.isEmpty()) {
+            prefs.edit().remove(KEY_SMS_PACKAGES).apply();
+        } else {
+            prefs.edit().putStringSet(KEY_SMS_PACKAGES, new HashSet<>(packages)).apply();
         }
-
-        return false;
     }
 
     /**
@@ -146,23 +353,11 @@ public class SmsNotificationListener extends NotificationListenerService {
      * Ensures the notification is actually an SMS and not just from an SMS app
      * Compatible with Android 6.0+ (API 23+)
      */
-    private boolean isValidSmsNotification(StatusBarNotification sbn) {
-        Notification notification = sbn.getNotification();
-
-        if (notification == null) {
-            return false;
-        }
-
-        // Check if notification has the characteristics of an SMS
-        Bundle extras = notification.extras;
-        if (extras == null) {
-            return false;
-        }
-
-        // Look for SMS-specific indicators (handle both String and SpannableString)
-        String title = getStringFromExtras(extras, Notification.EXTRA_TITLE);
-        String text = getStringFromExtras(extras, Notification.EXTRA_TEXT);
-        String bigText = getStringFromExtras(extras, Notification.EXTRA_BIG_TEXT);
+    private boolean isValidSmsNotification(SmsNotificationEvent event) {
+        // Look for SMS-specific indicators
+        String title = event.title;
+        String text = event.text;
+        String bigText = event.bigText;
 
         // Must have some text content
         if (TextUtils.isEmpty(text) && TextUtils.isEmpty(bigText)) {
@@ -184,29 +379,13 @@ public class SmsNotificationListener extends NotificationListenerService {
     /**
      * Extract SMS content from the notification
      */
-    private String extractSmsContent(StatusBarNotification sbn) {
-        Notification notification = sbn.getNotification();
+    private String extractSmsContent(SmsNotificationEvent event) {
+        // Prefer big text if available, otherwise use regular text
+        String content = !TextUtils.isEmpty(event.bigText) ? event.bigText : event.text;
 
-        if (notification == null) {
-            return null;
-        }
-
-        // Try to get content from notification extras
-        Bundle extras = notification.extras;
-        if (extras != null) {
-            // Try different text fields that might contain SMS content (handle both String and SpannableString)
-            String title = getStringFromExtras(extras, Notification.EXTRA_TITLE);
-            String text = getStringFromExtras(extras, Notification.EXTRA_TEXT);
-            String bigText = getStringFromExtras(extras, Notification.EXTRA_BIG_TEXT);
-            String subText = getStringFromExtras(extras, Notification.EXTRA_SUB_TEXT);
-
-            // Prefer big text if available, otherwise use regular text
-            String content = !TextUtils.isEmpty(bigText) ? bigText : text;
-
-            if (!TextUtils.isEmpty(content)) {
-                Log.d(TAG, "Extracted SMS - Title: " + title + ", Content: " + content);
-                return content.trim();
-            }
+        if (!TextUtils.isEmpty(content)) {
+            Log.d(TAG, "Extracted SMS - Title: " + event.title + ", Content: " + content);
+            return content.trim();
         }
 
         return null;
@@ -215,81 +394,101 @@ public class SmsNotificationListener extends NotificationListenerService {
     /**
      * Extract sender information from the notification
      */
-    private String extractSender(StatusBarNotification sbn) {
-        Notification notification = sbn.getNotification();
-
-        if (notification == null) {
-            return "Unknown";
+    private String extractSender(SmsNotificationEvent event) {
+        // Title often contains sender name or phone number
+        if (!TextUtils.isEmpty(event.title)) {
+            return event.title.trim();
         }
 
-        Bundle extras = notification.extras;
-        if (extras != null) {
-            // Try to get sender from title or sub text (handle both String and SpannableString)
-            String title = getStringFromExtras(extras, Notification.EXTRA_TITLE);
-            String subText = getStringFromExtras(extras, Notification.EXTRA_SUB_TEXT);
-
-            // Title often contains sender name or phone number
-            if (!TextUtils.isEmpty(title)) {
-                return title.trim();
-            }
-
-            // Fallback to sub text
-            if (!TextUtils.isEmpty(subText)) {
-                return subText.trim();
-            }
+        // Fallback to sub text
+        if (!TextUtils.isEmpty(event.subText)) {
+            return event.subText.trim();
         }
 
         // Fallback to package name
-        return sbn.getPackageName();
+        return event.packageName;
     }
     
     /**
-     * Broadcast SMS content to MainActivity for UI update
+     * Tell the UI about a newly stored SMS (no Intent/Bundle: the event references the stored message)
      */
-    private void broadcastSmsContent(String content, String sender, List<String> verificationCodes,
-                                   String primaryCode, String packageName, long timestamp) {
-        // Create intent to broadcast SMS content
-        Intent intent = new Intent("com.cht.smsforward.SMS_RECEIVED");
-        intent.putExtra("sms_content", content);
-        intent.putExtra("sender", sender);
-        intent.putExtra("package_name", packageName);
-        intent.putExtra("timestamp", timestamp);
-
-        // Add verification code information
-        if (!verificationCodes.isEmpty()) {
-            intent.putStringArrayListExtra("verification_codes", new ArrayList<>(verificationCodes));
-            intent.putExtra("primary_verification_code", primaryCode);
-        }
-
-        // Send local broadcast only (simplified approach)
-        LocalBroadcastManager.getInstance(this).sendBroadcast(intent);
-
-        Log.d(TAG, "SMS content broadcasted to MainActivity - Sender: " + sender +
-              ", Verification codes: " + verificationCodes.size());
+    private void publishMessageAdded(SmsMessage smsMessage) {
+        SmsForwardApplication.from(this).getEventBus().post(SmsEvent.messageAdded(smsMessage));
+        Log.d(TAG, "SMS added event posted - Sender: " + smsMessage.getSender());
     }
 
     /**
-     * Broadcast SMS status update to MainActivity for UI refresh
+     * Tell the UI about a forward status change of a stored SMS
      */
-    private void broadcastStatusUpdate(SmsMessage smsMessage) {
-        // Create intent to broadcast status update
-        Intent intent = new Intent("com.cht.smsforward.SMS_STATUS_UPDATE");
-        intent.putExtra("sender", smsMessage.getSender());
-        intent.putExtra("content", smsMessage.getContent());
-        intent.putExtra("timestamp", smsMessage.getTimestamp());
-        intent.putExtra("forward_status", smsMessage.getForwardStatus().name());
-        intent.putExtra("forward_error", smsMessage.getForwardError());
-
-        // Send local broadcast
-        LocalBroadcastManager.getInstance(this).sendBroadcast(intent);
-
-        Log.d(TAG, "SMS status update broadcasted - Sender: " + smsMessage.getSender() +
-              ", Forward Status: " + smsMessage.getForwardStatus() +
-              ", Forward Error: " + smsMessage.getForwardError());
+    private void publishStatusChanged(SmsMessage smsMessage) {
+        SmsForwardApplication.from(this).getEventBus().post(SmsEvent.statusChanged(smsMessage));
+        Log.d(TAG, "SMS status event posted - Sender: " + smsMessage.getSender() +
+              ", Forward Status: " + smsMessage.getForwardStatus());
     }
 
 
 
+    // MessagingStyle.Message 的 Bundle 键（与 Notification.MessagingStyle.Message 和 androidx 写入的键一致）
+    private static final String KEY_MESSAGE_TEXT = "text";
+    private static final String KEY_MESSAGE_TIME = "time";
+    private static final String KEY_MESSAGE_SENDER = "sender";
+    private static final String KEY_MESSAGE_PERSON = "person";
+    private static final String KEY_MESSAGE_SENDER_PERSON = "sender_person";
+
+    /**
+     * Unpack the individual messages of a MessagingStyle notification (Google Messages etc.)
+     * Reads the EXTRA_MESSAGES bundles the way MessagingStyle.extractMessagingStyleFromNotification
+     * does, on the parse thread. Messages without a sender are the user's own replies and are skipped.
+     * Text and sender are trimmed (an empty sender name falls back to extractSender) so that they match
+     * what gets stored for the message.
+     */
+    private List<NotificationMessage> unpackMessages(SmsNotificationEvent event) {
+        Parcelable[] rawMessages = event.rawMessages;
+        if (rawMessages == null || rawMessages.length == 0) {
+            return Collections.emptyList();
+        }
+        try {
+            List<NotificationMessage> messages = new ArrayList<>(rawMessages.length);
+            for (Parcelable raw : rawMessages) {
+                if (!(raw instanceof Bundle)) {
+                    continue;
+                }
+                Bundle bundle = (Bundle) raw;
+                CharSequence text = bundle.getCharSequence(KEY_MESSAGE_TEXT);
+                CharSequence sender = getMessageSender(bundle);
+                if (sender == null || TextUtils.isEmpty(text)) {
+                    continue;
+                }
+                String senderName = !TextUtils.isEmpty(sender) ? sender.toString().trim() : extractSender(event);
+                messages.add(new NotificationMessage(text.toString().trim(), senderName,
+                                                     bundle.getLong(KEY_MESSAGE_TIME)));
+            }
+            return messages;
+        } catch (Exception e) {
+            Log.e(TAG, "Error extracting MessagingStyle messages", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Sender name of a message bundle, or null for the user's own messages
+     */
+    private static CharSequence getMessageSender(Bundle bundle) {
+        Bundle person = bundle.getBundle(KEY_MESSAGE_PERSON);
+        if (person != null) {
+            CharSequence name = Person.fromBundle(person).getName();
+            return name != null ? name : "";
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            Parcelable senderPerson = bundle.getParcelable(KEY_MESSAGE_SENDER_PERSON);
+            if (senderPerson instanceof android.app.Person) {
+                CharSequence name = ((android.app.Person) senderPerson).getName();
+                return name != null ? name : "";
+            }
+        }
+        return bundle.getCharSequence(KEY_MESSAGE_SENDER);
+    }
+
     /**
      * Safely extract string from Bundle extras, handling both String and SpannableString
      */
@@ -320,151 +519,211 @@ public class SmsNotificationListener extends NotificationListenerService {
 
 
     /**
-     * Process SMS message with optimized asynchronous processing
+     * Fan out an extracted SMS: the insert goes to the persist stage first, then the primary code
+     * goes straight to the dispatch stage without waiting for the write (the dispatch stage writes
+     * its own pending-forward record before sending)
      */
     private void processSmsMessage(String content, String sender, String packageName,
                                  long timestamp, List<String> verificationCodes, String primaryCode) {
 
-        try {
-            // Create SMS message object first
-            List<String> codes = verificationCodes != null ? verificationCodes : new ArrayList<>();
-            SmsMessage smsMessage = new SmsMessage(content, sender, packageName, timestamp, codes, primaryCode);
-
-            // 同步保存到数据库以确保UI能立即看到新消息
-            smsDataManager.addSmsMessage(smsMessage);
-            Log.d(TAG, "SMS message processed and saved");
+        // Create SMS message object first
+        List<String> codes = verificationCodes != null ? verificationCodes : new ArrayList<>();
+        SmsMessage smsMessage = new SmsMessage(content, sender, packageName, timestamp, codes, primaryCode);
 
-            // 验证保存是否成功
-            List<SmsMessage> allMessages = smsDataManager.loadSmsMessages();
-            Log.d(TAG, "Verification: Total messages in database after save: " + allMessages.size());
-
-            // 立即广播UI更新（现在数据库已经有数据了）
-            broadcastSmsContent(content, sender, verificationCodes, primaryCode, packageName, timestamp);
-
-            // 异步处理转发以避免阻塞
-            if (primaryCode != null) {
-                // 统一的转发处理
-                forwardVerificationCode(smsMessage, primaryCode, content, sender);
+        // 先提交新增，保证之后的状态更新在同一写入线程上排在它后面；保存完成后再通知UI
+        boolean queuedForSave = offer(persistStage, () -> {
+            if (smsDataManager.addSmsMessage(smsMessage)) {
+                publishMessageAdded(smsMessage);
             }
+        });
+        Log.d(TAG, "SMS message processed and queued for saving");
 
-        } catch (Exception e) {
-            Log.e(TAG, "Error processing SMS message", e);
+        // 性能优化：有主验证码时立即进入转发阶段，不等待持久化完成
+        boolean forwarded = primaryCode == null || offer(dispatchStage, smsMessage);
 
-            // Fallback: queue the message for later processing
-            messageQueue.queueMessage(content, sender, packageName, timestamp, verificationCodes, primaryCode);
-            Log.d(TAG, "Message queued for later processing due to error");
+        if (!forwarded || !queuedForSave) {
+            messageQueue.queueMessage(content, sender, packageName, timestamp, codes, primaryCode);
+            Log.d(TAG, "Message queued for later processing - pipeline stage is full");
         }
     }
 
     /**
-     * 统一的验证码转发处理方法
-     * 消除邮件和Server酱发送逻辑的重复代码
+     * Dispatch stage: 统一的验证码转发处理方法
+     * 消除邮件和Server酱发送逻辑的重复代码；实际网络请求由各发送器异步执行
      */
-    private void forwardVerificationCode(SmsMessage smsMessage, String primaryCode, String content, String sender) {
-        UnifiedSettingsManager settingsManager = new UnifiedSettingsManager(this);
+    private void dispatch(SmsMessage smsMessage) {
+        String primaryCode = smsMessage.getPrimaryVerificationCode();
+        String content = smsMessage.getContent();
+        String sender = smsMessage.getSender();
+
+        // 进程级共享组件（加密配置和发送器只初始化一次，与界面共用）
+        // 加密配置在进程启动时后台初始化；首条短信到达时若尚未完成，在当前工作线程上等待，不阻塞主线程
+        SmsForwardApplication app = SmsForwardApplication.from(this);
+        UnifiedSettingsManager settingsManager = app.getSettingsManager();
+        EmailConfig emailConfig = settingsManager.loadEmailConfig();
+        ServerChanConfig serverChanConfig = settingsManager.loadServerChanConfig();
+
+        // 预写记录：转发不等待短信历史落盘，发送前先把待转发记录同步写入重试队列（只有这一条，不是整个历史），
+        // 任一渠道发送成功后删除；进程在发送完成前被杀死时记录仍在
+        boolean anyEnabled = (emailConfig.isEnabled() && emailConfig.isValid()) ||
+                             (serverChanConfig.isEnabled() && serverChanConfig.isValid());
+        if (anyEnabled && !messageQueue.queueMessageDurably(content, sender, smsMessage.getPackageName(),
+                smsMessage.getTimestamp(), smsMessage.getVerificationCodes(), primaryCode)) {
+            Log.w(TAG, "Could not write pending forward record - forwarding anyway");
+        }
+
+        ForwardProgress progress = new ForwardProgress(smsMessage);
 
         // 邮件转发
-        new Thread(() -> {
-            forwardToEmailService(smsMessage, primaryCode, content, sender, settingsManager.loadEmailConfig());
-        }, "Email-Sending-" + System.currentTimeMillis()).start();
+        forwardToEmailService(app.getEmailSender(), progress, primaryCode, content, sender, emailConfig);
 
         // Server酱转发
-        new Thread(() -> {
-            forwardToServerChanService(smsMessage, primaryCode, content, sender, settingsManager.loadServerChanConfig());
-        }, "ServerChan-Sending-" + System.currentTimeMillis()).start();
+        forwardToServerChanService(app.getServerChanSender(), progress, primaryCode, content, sender,
+                                   serverChanConfig);
+    }
+
+    /**
+     * A channel delivered the code: the pending forward record is no longer needed
+     */
+    private void clearPendingForward(SmsMessage smsMessage) {
+        messageQueue.removeMessage(smsMessage.getContent(), smsMessage.getSender(), smsMessage.getTimestamp());
+    }
+
+    /**
+     * Forward status of one dispatched SMS, changed copy-on-write
+     * Each change makes a new SmsMessage (withEmailStatus/withServerChanStatus) and queues it for the
+     * store and the UI; instances already handed out (store snapshot, events, adapter) are never
+     * modified. The two channels report on their own callback threads, so changes are applied one at
+     * a time to the latest version and queued in that order.
+     */
+    private final class ForwardProgress {
+        final SmsMessage dispatched;
+        private SmsMessage current;
+
+        ForwardProgress(SmsMessage dispatched) {
+            this.dispatched = dispatched;
+            this.current = dispatched;
+        }
+
+        synchronized void email(ForwardStatus status, String error) {
+            current = current.withEmailStatus(status, error);
+            persistStatus(current);
+        }
+
+        synchronized void serverChan(ForwardStatus status, String error) {
+            current = current.withServerChanStatus(status, error);
+            persistStatus(current);
+        }
+    }
+
+    /**
+     * Queue a forward status change behind the insert on the persist stage
+     * The new version replaces the stored message and is posted to the UI (which holds the older
+     * instance, so every version is posted, including "disabled").
+     */
+    private void persistStatus(SmsMessage smsMessage) {
+        Runnable task = () -> {
+            smsDataManager.updateSmsMessage(smsMessage);
+            publishStatusChanged(smsMessage);
+        };
+        if (!offer(persistStage, task) && persistDrained) {
+            // 发送回调晚于服务停止：写入线程已经排空退出，在回调线程上直接保存，顺序不受影响
+            task.run();
+        }
     }
 
     /**
      * 邮件转发处理方法
      */
-    private void forwardToEmailService(SmsMessage smsMessage, String primaryCode, String content, String sender, EmailConfig config) {
+    private void forwardToEmailService(EmailSender emailSender, ForwardProgress progress, String primaryCode, String content, String sender, EmailConfig config) {
         try {
             Log.d(TAG, "Attempting to send verification code via Email: " + primaryCode);
 
             // 检查邮件服务是否启用
             if (!config.isEnabled() || !config.isValid()) {
                 Log.d(TAG, "Email forwarding is disabled or invalid, skipping send");
-                smsMessage.setEmailFailed("disabled");
-                smsDataManager.updateSmsMessage(smsMessage);
+                progress.email(ForwardStatus.FAILED, "disabled");
                 return;
             }
 
             // 设置发送中状态
-            smsMessage.setEmailSending();
-            smsDataManager.updateSmsMessage(smsMessage);
-            broadcastStatusUpdate(smsMessage);
+            progress.email(ForwardStatus.SENDING, null);
 
             // 执行邮件发送
-            emailSender.sendVerificationCodeEmail(primaryCode, content, sender, new EmailSender.EmailSendCallback() {
+            emailSender.sendVerificationCodeMessage(config, primaryCode, content, sender, new EmailSender.EmailSendCallback() {
                 @Override
                 public void onSuccess() {
                     Log.d(TAG, "Verification code email sent successfully");
-                    smsMessage.setEmailSent();
-                    smsDataManager.updateSmsMessage(smsMessage);
-                    broadcastStatusUpdate(smsMessage);
+                    clearPendingForward(progress.dispatched);
+                    progress.email(ForwardStatus.SUCCESS, null);
                 }
 
                 @Override
                 public void onFailure(String error) {
                     Log.e(TAG, "Failed to send verification code email: " + error);
-                    smsMessage.setEmailFailed(error);
-                    smsDataManager.updateSmsMessage(smsMessage);
-                    broadcastStatusUpdate(smsMessage);
+                    progress.email(ForwardStatus.FAILED, error);
                 }
             });
 
         } catch (Exception e) {
             Log.e(TAG, "Error sending email", e);
-            smsMessage.setEmailFailed(e.getMessage());
-            smsDataManager.updateSmsMessage(smsMessage);
-            broadcastStatusUpdate(smsMessage);
+            progress.email(ForwardStatus.FAILED, e.getMessage());
         }
     }
 
     /**
      * Server酱转发处理方法
      */
-    private void forwardToServerChanService(SmsMessage smsMessage, String primaryCode, String content, String sender, ServerChanConfig config) {
+    private void forwardToServerChanService(ServerChanSender serverChanSender, ForwardProgress progress, String primaryCode, String content, String sender, ServerChanConfig config) {
         try {
             Log.d(TAG, "Attempting to send verification code via Server酱: " + primaryCode);
 
             // 检查Server酱服务是否启用
             if (!config.isEnabled() || !config.isValid()) {
                 Log.d(TAG, "Server酱 forwarding is disabled or invalid, skipping send");
-                smsMessage.setServerChanFailed("disabled");
-                smsDataManager.updateSmsMessage(smsMessage);
+                progress.serverChan(ForwardStatus.FAILED, "disabled");
                 return;
             }
 
             // 设置发送中状态
-            smsMessage.setServerChanSending();
-            smsDataManager.updateSmsMessage(smsMessage);
-            broadcastStatusUpdate(smsMessage);
+            progress.serverChan(ForwardStatus.SENDING, null);
 
             // 执行Server酱发送
-            serverChanSender.sendVerificationCodeMessage(primaryCode, content, sender, new ServerChanSender.ServerChanSendCallback() {
+            serverChanSender.sendVerificationCodeMessage(config, primaryCode, content, sender, new ServerChanSender.ServerChanSendCallback() {
                 @Override
                 public void onSuccess() {
                     Log.d(TAG, "Verification code sent to Server酱 successfully");
-                    smsMessage.setServerChanSent();
-                    smsDataManager.updateSmsMessage(smsMessage);
-                    broadcastStatusUpdate(smsMessage);
+                    clearPendingForward(progress.dispatched);
+                    progress.serverChan(ForwardStatus.SUCCESS, null);
                 }
 
                 @Override
                 public void onFailure(String error) {
                     Log.e(TAG, "Failed to send verification code to Server酱: " + error);
-                    smsMessage.setServerChanFailed(error);
-                    smsDataManager.updateSmsMessage(smsMessage);
-                    broadcastStatusUpdate(smsMessage);
+                    progress.serverChan(ForwardStatus.FAILED, error);
                 }
             });
 
         } catch (Exception e) {
             Log.e(TAG, "Error sending to Server酱", e);
-            smsMessage.setServerChanFailed(e.getMessage());
-            smsDataManager.updateSmsMessage(smsMessage);
-            broadcastStatusUpdate(smsMessage);
+            progress.serverChan(ForwardStatus.FAILED, e.getMessage());
+        }
+    }
+
+    /**
+     * Output of the parse stage
+     */
+    private static final class ParsedSms {
+        final String content;
+        final String sender;
+        final String packageName;
+        final long timestamp;
+
+        ParsedSms(String content, String sender, String packageName, long timestamp) {
+            this.content = content;
+            this.sender = sender;
+            this.packageName = packageName;
+            this.timestamp = timestamp;
         }
     }
 }
@@ -0,0 +1,64 @@
+package com.cht.smsforward.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Package name filter deciding which notifications come from SMS apps (pure Java)
+ * Every notification on the device passes through it on the listener's main thread, so the
+ * check is a single hash lookup on an immutable set: no allocation, no logging. The set can be
+ * replaced at runtime; readers always see either the old or the new set.
+ */
+public class SmsPackageFilter {
+
+    // Common SMS app package names for Android and Meizu devices
+    public static final List<String> DEFAULT_SMS_PACKAGES = Collections.unmodifiableList(Arrays.asList(
+        "com.android.mms",           // Default Android Messages
+        "com.google.android.apps.messaging", // Google Messages
+        "com.meizu.flyme.mms",       // Meizu SMS app (primary target)
+        "com.meizu.mms",             // Alternative Meizu SMS package
+        "com.samsung.android.messaging", // Samsung Messages
+        "com.android.messaging",     // AOSP Messaging
+        "com.sonyericsson.conversations", // Sony Messages
+        "com.htc.sense.mms"          // HTC Messages
+    ));
+
+    private volatile Set<String> packages;
+
+    public SmsPackageFilter() {
+        this(DEFAULT_SMS_PACKAGES);
+    }
+
+    public SmsPackageFilter(Collection<String> packages) {
+        setPackages(packages);
+    }
+
+    /**
+     * Check whether a notification from this package should be processed as SMS
+     */
+    public boolean accepts(String packageName) {
+        return packageName != null && packages.contains(packageName);
+    }
+
+    /**
+     * Replace the accepted packages; null or empty restores the defaults
+     */
+    public void setPackages(Collection<String> newPackages) {
+        Collection<String> source = newPackages == null || newPackages.isEmpty() ? DEFAULT_SMS_PACKAGES : newPackages;
+        Set<String> set = new HashSet<>(source.size() * 2);
+        for (String packageName : source) {
+            if (packageName != null && !packageName.trim().isEmpty()) {
+                set.add(packageName.trim());
+            }
+        }
+        packages = Collections.unmodifiableSet(set);
+    }
+
+    public Set<String> getPackages() {
+        return packages;
+    }
+}
@@ -1,6 +1,7 @@
 package com.cht.smsforward.ui;
 
 import com.cht.smsforward.R;
+import com.cht.smsforward.SmsForwardApplication;
 import com.cht.smsforward.config.ForwardingConfig;
 import com.cht.smsforward.config.UnifiedSettingsManager;
 import com.cht.smsforward.sender.MessageSender;
@@ -51,19 +52,25 @@ public abstract class BaseConfigActivity<T extends ForwardingConfig, S extends M
             return insets;
         });
         
-        // Initialize managers
-        settingsManager = new UnifiedSettingsManager(this);
-        messageSender = createMessageSender();
-        
         // Initialize UI components
         initializeCommonUI();
         initializeSpecificUI();
         
-        // Load existing configuration
-        loadConfiguration();
-        
-        // Set up event listeners
-        setupEventListeners();
+        // 加密配置在后台初始化；就绪后再加载配置和绑定事件（通常此时早已就绪，直接同步执行）
+        SmsForwardApplication.from(this).whenSettingsReady(manager -> {
+            if (isFinishing() || isDestroyed()) {
+                return;
+            }
+            // Initialize managers
+            settingsManager = manager;
+            messageSender = createMessageSender();
+            
+            // Load existing configuration
+            loadConfiguration();
+            
+            // Set up event listeners
+            setupEventListeners();
+        });
     }
     
     /**
@@ -1,6 +1,7 @@
 package com.cht.smsforward.ui;
 
 import com.cht.smsforward.R;
+import com.cht.smsforward.SmsForwardApplication;
 import com.cht.smsforward.config.EmailConfig;
 import com.cht.smsforward.sender.EmailSender;
 import com.cht.smsforward.util.NetworkDiagnostics;
@@ -49,7 +50,7 @@ public class EmailConfigActivity extends BaseConfigActivity<EmailConfig, EmailSe
 
     @Override
     protected EmailSender createMessageSender() {
-        return new EmailSender(this);
+        return SmsForwardApplication.from(this).getEmailSender();
     }
 
     @Override
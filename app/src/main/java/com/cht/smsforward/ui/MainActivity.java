@@ -1,20 +1,20 @@
 package com.cht.smsforward.ui;
 
 import com.cht.smsforward.R;
+import com.cht.smsforward.SmsForwardApplication;
 import com.cht.smsforward.config.EmailConfig;
 import com.cht.smsforward.config.ServerChanConfig;
 import com.cht.smsforward.config.UnifiedSettingsManager;
 import com.cht.smsforward.data.SmsDataManager;
 import com.cht.smsforward.data.SmsMessage;
 import com.cht.smsforward.model.ForwardStatus;
+import com.cht.smsforward.service.SmsEvent;
+import com.cht.smsforward.service.SmsEventBatch;
+import com.cht.smsforward.service.SmsEventBus;
 
-import android.content.BroadcastReceiver;
 import android.content.ComponentName;
-import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.os.Bundle;
-import android.os.Handler;
 import android.provider.Settings;
 import android.text.TextUtils;
 import android.util.Log;
@@ -23,7 +23,6 @@ import android.widget.Button;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import androidx.activity.EdgeToEdge;
@@ -31,15 +30,12 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
-import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 public class MainActivity extends AppCompatActivity {
 
     private static final String TAG = "MainActivity";
-    private static final String SMS_RECEIVED_ACTION = "com.cht.smsforward.SMS_RECEIVED";
-    private static final String SMS_STATUS_UPDATE_ACTION = "com.cht.smsforward.SMS_STATUS_UPDATE";
 
     private TextView notificationStatusText;
     private TextView emailStatusText;
@@ -50,11 +46,9 @@ public class MainActivity extends AppCompatActivity {
     private RecyclerView smsRecyclerView;
     private TextView emptyStateText;
     private SmsAdapter smsAdapter;
-    private SmsBroadcastReceiver smsBroadcastReceiver;
     private SmsDataManager smsDataManager;
-    private UnifiedSettingsManager settingsManager;
-    private Handler uiRefreshHandler;
-    private Runnable uiRefreshRunnable;
+    private SmsEventBus smsEventBus;
+    private final SmsEventBus.Subscriber smsEventSubscriber = this::onSmsEvents;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -70,11 +64,8 @@ public class MainActivity extends AppCompatActivity {
             return insets;
         });
 
-        // Initialize data manager
-        smsDataManager = new SmsDataManager(this);
-
-        // Initialize unified settings manager
-        settingsManager = new UnifiedSettingsManager(this);
+        // Shared with SmsNotificationListener: its writes are visible here without reloading
+        smsDataManager = SmsForwardApplication.from(this).getDataManager();
 
         // Initialize UI components
         initializeUI();
@@ -82,14 +73,11 @@ public class MainActivity extends AppCompatActivity {
         // Load saved SMS messages
         loadSavedMessages();
 
-        // Set up SMS broadcast receiver
-        setupSmsBroadcastReceiver();
+        // Subscribe to SMS events from SmsNotificationListener
+        subscribeToSmsEvents();
 
         // Check notification access permission and email forwarding status
         checkAndUpdateAllStatus();
-
-        // Set up periodic UI refresh to catch any missed status updates
-        setupPeriodicUIRefresh();
     }
 
     @Override
@@ -100,15 +88,9 @@ public class MainActivity extends AppCompatActivity {
         // Re-check permissions and status when returning from Settings
         checkAndUpdateAllStatus();
 
-        // Force reload cache to get latest data from background processing
-        smsDataManager.forceReloadCache();
-
-        // Reload messages from storage to sync with any background processing
+        // Show messages stored while the activity was in the background (shared in-memory snapshot)
         loadSavedMessages();
 
-        // Start periodic UI refresh when app is in foreground
-        startPeriodicUIRefresh();
-
         Log.d(TAG, "MainActivity onResume completed - UI should be up to date");
     }
 
@@ -117,35 +99,19 @@ public class MainActivity extends AppCompatActivity {
         super.onDestroy();
         Log.d(TAG, "MainActivity onDestroy - cleaning up resources");
 
-        // Unregister broadcast receiver to avoid memory leaks
-        if (smsBroadcastReceiver != null) {
-            try {
-                LocalBroadcastManager.getInstance(this).unregisterReceiver(smsBroadcastReceiver);
-                Log.d(TAG, "Broadcast receiver unregistered successfully");
-            } catch (IllegalArgumentException e) {
-                // Receiver was not registered
-                Log.d(TAG, "Broadcast receiver was not registered");
-            }
-        }
-
-        // Stop periodic UI refresh
-        stopPeriodicUIRefresh();
-
-        // 清理SmsDataManager资源
-        if (smsDataManager != null) {
-            smsDataManager.cleanup();
+        // Unsubscribe to avoid leaking the activity through the process-wide event bus
+        if (smsEventBus != null) {
+            smsEventBus.unsubscribe(smsEventSubscriber);
+            Log.d(TAG, "SMS event subscriber removed");
         }
     }
 
     @Override
     protected void onPause() {
         super.onPause();
-        Log.d(TAG, "MainActivity onPause - keeping broadcast receiver active for background updates");
-        // Keep broadcast receiver registered to receive status updates even when app is in background
+        Log.d(TAG, "MainActivity onPause - keeping event subscription active for background updates");
+        // Keep the event subscription to receive status updates even when app is in background
         // This ensures real-time status updates work regardless of app state
-
-        // Stop periodic UI refresh when app goes to background
-        stopPeriodicUIRefresh();
     }
 
     /**
@@ -197,61 +163,13 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * Set up broadcast receiver for SMS notifications
+     * Subscribe to SMS events (delivered on the main thread, batched per frame)
      */
-    private void setupSmsBroadcastReceiver() {
-        smsBroadcastReceiver = new SmsBroadcastReceiver();
-        IntentFilter filter = new IntentFilter();
-        filter.addAction(SMS_RECEIVED_ACTION);
-        filter.addAction(SMS_STATUS_UPDATE_ACTION);
+    private void subscribeToSmsEvents() {
+        smsEventBus = SmsForwardApplication.from(this).getEventBus();
+        smsEventBus.subscribe(smsEventSubscriber);
 
-        // Register with LocalBroadcastManager only (simplified approach)
-        LocalBroadcastManager.getInstance(this).registerReceiver(smsBroadcastReceiver, filter);
-
-        Log.e(TAG, "SMS broadcast receiver registered (LocalBroadcastManager only)");
-    }
-
-    /**
-     * Set up periodic UI refresh to catch any missed status updates
-     */
-    private void setupPeriodicUIRefresh() {
-        uiRefreshHandler = new Handler(getMainLooper());
-        uiRefreshRunnable = new Runnable() {
-            @Override
-            public void run() {
-                Log.d(TAG, "Periodic UI refresh - checking for status updates");
-
-                // Force reload cache and refresh UI
-                smsDataManager.forceReloadCache();
-                loadSavedMessages();
-
-                // Schedule next refresh in 10 seconds
-                uiRefreshHandler.postDelayed(this, 10000);
-            }
-        };
-    }
-
-    /**
-     * Start periodic UI refresh (when app is in foreground)
-     */
-    private void startPeriodicUIRefresh() {
-        if (uiRefreshHandler != null && uiRefreshRunnable != null) {
-            // Remove any existing callbacks first
-            uiRefreshHandler.removeCallbacks(uiRefreshRunnable);
-            // Start periodic refresh every 10 seconds
-            uiRefreshHandler.postDelayed(uiRefreshRunnable, 10000);
-            Log.d(TAG, "Started periodic UI refresh");
-        }
-    }
-
-    /**
-     * Stop periodic UI refresh (when app goes to background)
-     */
-    private void stopPeriodicUIRefresh() {
-        if (uiRefreshHandler != null && uiRefreshRunnable != null) {
-            uiRefreshHandler.removeCallbacks(uiRefreshRunnable);
-            Log.d(TAG, "Stopped periodic UI refresh");
-        }
+        Log.d(TAG, "SMS event subscriber registered");
     }
 
     /**
@@ -264,6 +182,25 @@ public class MainActivity extends AppCompatActivity {
         boolean notificationEnabled = isNotificationServiceEnabled();
         Log.d(TAG, "Notification access enabled: " + notificationEnabled);
 
+        // Update UI for notification status right away
+        updateNotificationStatus(notificationEnabled);
+
+        // Update empty state and permission button visibility
+        updateEmptyState();
+        updatePermissionButtonVisibility(notificationEnabled);
+
+        // 转发状态需要加密配置：冷启动时等后台初始化完成后再更新，不阻塞主线程
+        SmsForwardApplication.from(this).whenSettingsReady(this::updateForwardingStatuses);
+    }
+
+    /**
+     * Update email and Server酱 forwarding status displays (configs are served from the in-memory cache)
+     */
+    private void updateForwardingStatuses(UnifiedSettingsManager settingsManager) {
+        if (isFinishing() || isDestroyed()) {
+            return;
+        }
+
         // Check email forwarding status
         EmailConfig emailConfig = settingsManager.loadEmailConfig();
         boolean emailEnabled = emailConfig.isEnabled();
@@ -276,18 +213,12 @@ public class MainActivity extends AppCompatActivity {
         boolean serverChanValid = serverChanConfig.isValid();
         Log.d(TAG, "Server酱 forwarding enabled: " + serverChanEnabled + ", valid: " + serverChanValid);
 
-        // Update UI for all statuses
-        updateNotificationStatus(notificationEnabled);
         updateForwardingStatus(emailStatusText, emailEnabled, emailValid,
                               getString(R.string.email_forwarding_enabled),
                               getString(R.string.email_forwarding_disabled), "Email");
         updateForwardingStatus(serverChanStatusText, serverChanEnabled, serverChanValid,
                               getString(R.string.serverchan_forwarding_enabled),
                               getString(R.string.serverchan_forwarding_disabled), "Server酱");
-
-        // Update empty state and permission button visibility
-        updateEmptyState();
-        updatePermissionButtonVisibility(notificationEnabled);
     }
 
     /**
@@ -394,38 +325,19 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * Handle UI notification of new SMS (reload from storage)
+     * Show a toast for a newly received SMS
      */
-    private void handleNewSmsNotification(Intent intent) {
-        Log.d(TAG, "Handling new SMS notification");
-
-        // 强制重新加载缓存以确保获取最新数据
-        smsDataManager.forceReloadCache();
-
-        // Simply reload messages from storage to sync UI
-        // The actual processing and storage is handled by SmsNotificationListener
-        loadSavedMessages();
-
-        // Show toast for verification codes if available
-        String primaryCode = intent.getStringExtra("primary_verification_code");
-        ArrayList<String> verificationCodes = intent.getStringArrayListExtra("verification_codes");
-        List<String> codes = verificationCodes != null ? verificationCodes : new ArrayList<>();
-
-        Log.d(TAG, "SMS notification details - Primary code: " + primaryCode + ", Codes count: " + codes.size());
-
+    private void showNewSmsToast(SmsMessage smsMessage) {
+        String primaryCode = smsMessage.getPrimaryVerificationCode();
         if (primaryCode != null) {
             showToast(getString(R.string.toast_new_verification_code, primaryCode));
-        } else if (!codes.isEmpty()) {
+        } else if (smsMessage.hasVerificationCodes()) {
             showToast(getString(R.string.toast_new_sms_with_codes));
         } else {
             showToast(getString(R.string.toast_new_sms));
         }
-
-        Log.d(TAG, "UI updated for new SMS notification - Current adapter count: " + smsAdapter.getItemCount());
     }
 
-
-
     /**
      * Load saved SMS messages from persistent storage
      */
@@ -464,78 +376,31 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * Broadcast receiver for SMS notifications from NotificationListenerService
+     * Apply the SMS events posted since the previous frame as one diff
+     * 性能优化：一帧内的多条状态事件合并为每条消息最多一次刷新，不重新加载存储
      */
-    private class SmsBroadcastReceiver extends BroadcastReceiver {
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            Log.e(TAG, "=== BROADCAST RECEIVED ===");
-            Log.e(TAG, "Intent action: " + intent.getAction());
-
-            if (SMS_RECEIVED_ACTION.equals(intent.getAction())) {
-                Log.e(TAG, "SMS broadcast received - updating UI");
-                handleNewSmsNotification(intent);
-            } else if (SMS_STATUS_UPDATE_ACTION.equals(intent.getAction())) {
-                Log.e(TAG, "SMS status update received - refreshing UI");
-                handleSmsStatusUpdate(intent);
-            } else {
-                Log.e(TAG, "Broadcast action mismatch - ignoring: " + intent.getAction());
-            }
-        }
-    }
+    private void onSmsEvents(List<SmsEvent> events) {
+        SmsEventBatch batch = SmsEventBatch.of(events);
+        List<SmsMessage> added = batch.getAddedMessages();
 
-    /**
-     * Handle SMS status update notification
-     */
-    private void handleSmsStatusUpdate(Intent intent) {
-        Log.d(TAG, "Handling SMS status update");
-
-        // Extract message details from intent
-        String sender = intent.getStringExtra("sender");
-        String content = intent.getStringExtra("content");
-        long timestamp = intent.getLongExtra("timestamp", 0);
-        String forwardStatus = intent.getStringExtra("forward_status");
-        String forwardError = intent.getStringExtra("forward_error");
-
-        Log.d(TAG, "Status update for message from " + sender + " at " + timestamp + " - Status: " + forwardStatus);
-
-        // 强制重新加载缓存以确保获取最新状态
-        smsDataManager.forceReloadCache();
-
-        // Try to find and update the specific message in the adapter first (more efficient)
-        List<SmsMessage> currentMessages = smsDataManager.loadSmsMessages();
-        SmsMessage updatedMessage = null;
-
-        for (SmsMessage message : currentMessages) {
-            if (message.getTimestamp() == timestamp &&
-                message.getSender().equals(sender) &&
-                message.getContent().equals(content)) {
-                updatedMessage = message;
-                break;
-            }
+        if (!smsAdapter.applyChanges(added, batch.getChangedMessages())) {
+            // Not in the list yet (e.g. the add event was delivered to an earlier activity instance)
+            Log.d(TAG, "Updated message not in adapter, reloading all messages");
+            loadSavedMessages();
         }
 
-        if (updatedMessage != null) {
-            // Try to update the specific item in the adapter
-            boolean updated = smsAdapter.updateSmsMessage(updatedMessage);
-            if (!updated) {
-                // If specific update failed, reload all messages
-                Log.d(TAG, "Specific message update failed, reloading all messages");
-                loadSavedMessages();
-            } else {
-                Log.d(TAG, "Successfully updated specific message in adapter");
-            }
-        } else {
-            // If message not found, reload all messages
-            Log.d(TAG, "Updated message not found, reloading all messages");
-            loadSavedMessages();
+        if (!added.isEmpty()) {
+            updateEmptyState();
+            // Only the newest message gets a toast when several arrive in one frame
+            showNewSmsToast(added.get(added.size() - 1));
         }
 
         // Show a brief status update toast if there's an error (but not for disabled services)
-        if (forwardError != null && !forwardError.isEmpty() && !"disabled".equals(forwardError)) {
-            showToast("转发失败: " + forwardError);
+        if (batch.getLastError() != null) {
+            showToast("转发失败: " + batch.getLastError());
         }
-    }
 
-
-}
\ No newline at end of file
+        Log.d(TAG, "Applied " + batch.getEventCount() + " SMS events - " + added.size() + " added, " +
+              batch.getChangedMessages().size() + " status changes");
+    }
+}
@@ -1,6 +1,7 @@
 package com.cht.smsforward.ui;
 
 import com.cht.smsforward.R;
+import com.cht.smsforward.SmsForwardApplication;
 import com.cht.smsforward.config.ServerChanConfig;
 import com.cht.smsforward.sender.ServerChanSender;
 
@@ -46,7 +47,7 @@ public class ServerChanConfigActivity extends BaseConfigActivity<ServerChanConfi
 
     @Override
     protected ServerChanSender createMessageSender() {
-        return new ServerChanSender(this);
+        return SmsForwardApplication.from(this).getServerChanSender();
     }
 
     @Override
@@ -2,11 +2,13 @@ package com.cht.smsforward.ui;
 
 import com.cht.smsforward.R;
 import com.cht.smsforward.data.SmsMessage;
+import com.cht.smsforward.data.SmsMessageOrder;
 import com.cht.smsforward.model.ForwardStatus;
 
 import android.content.ClipData;
 import android.content.ClipboardManager;
 import android.content.Context;
+import android.os.Trace;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -16,6 +18,7 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.ArrayList;
@@ -25,13 +28,41 @@ import java.util.List;
  * RecyclerView adapter for displaying SMS messages with verification codes
  */
 public class SmsAdapter extends RecyclerView.Adapter<SmsAdapter.SmsViewHolder> {
+
+    // notifyItemChanged 的 payload：只需刷新转发状态，不重新绑定整行
+    private static final Object PAYLOAD_FORWARD_STATUS = new Object();
     
+    /**
+     * Label and colors of the forward status indicator, resolved once per adapter
+     */
+    private static final class StatusStyle {
+        final String label;
+        final int textColor;
+        final int backgroundColor;
+
+        StatusStyle(Context context, int labelRes, int backgroundColorRes) {
+            this.label = context.getString(labelRes);
+            this.textColor = ContextCompat.getColor(context, android.R.color.white);
+            this.backgroundColor = ContextCompat.getColor(context, backgroundColorRes);
+        }
+    }
+
     private List<SmsMessage> smsMessages;
     private Context context;
+    // 性能优化：按状态预先解析文字和颜色，绑定时不再调用 getString/getColor（按 ordinal 索引，DISABLED 为 null）
+    private final StatusStyle[] statusStyles = new StatusStyle[ForwardStatus.values().length];
     
     public SmsAdapter(Context context) {
         this.context = context;
         this.smsMessages = new ArrayList<>();
+        statusStyles[ForwardStatus.NOT_SENT.ordinal()] =
+                new StatusStyle(context, R.string.forward_status_not_sent, android.R.color.darker_gray);
+        statusStyles[ForwardStatus.SENDING.ordinal()] =
+                new StatusStyle(context, R.string.forward_status_sending, android.R.color.holo_orange_dark);
+        statusStyles[ForwardStatus.SUCCESS.ordinal()] =
+                new StatusStyle(context, R.string.forward_status_success, android.R.color.holo_green_dark);
+        statusStyles[ForwardStatus.FAILED.ordinal()] =
+                new StatusStyle(context, R.string.forward_status_failed, android.R.color.holo_red_dark);
     }
     
     @NonNull
@@ -44,8 +75,31 @@ public class SmsAdapter extends RecyclerView.Adapter<SmsAdapter.SmsViewHolder> {
     
     @Override
     public void onBindViewHolder(@NonNull SmsViewHolder holder, int position) {
-        SmsMessage smsMessage = smsMessages.get(position);
-        holder.bind(smsMessage);
+        // 供 systrace / 宏基准测试统计每行绑定耗时
+        Trace.beginSection("SmsAdapter.bind");
+        try {
+            holder.bind(smsMessages.get(position));
+        } finally {
+            Trace.endSection();
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull SmsViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && onlyForwardStatus(payloads)) {
+            holder.bindForwardStatus(smsMessages.get(position));
+            return;
+        }
+        onBindViewHolder(holder, position);
+    }
+
+    private static boolean onlyForwardStatus(List<Object> payloads) {
+        for (Object payload : payloads) {
+            if (payload != PAYLOAD_FORWARD_STATUS) {
+                return false;
+            }
+        }
+        return true;
     }
     
     @Override
@@ -57,15 +111,8 @@ public class SmsAdapter extends RecyclerView.Adapter<SmsAdapter.SmsViewHolder> {
      * Add a new SMS message to the list in the correct position (sorted by timestamp)
      */
     public void addSmsMessage(SmsMessage smsMessage) {
-        // Find the correct insertion position (sorted by timestamp descending)
-        int insertIndex = 0;
-        for (int i = 0; i < smsMessages.size(); i++) {
-            if (smsMessage.getTimestamp() > smsMessages.get(i).getTimestamp()) {
-                insertIndex = i;
-                break;
-            }
-            insertIndex = i + 1;
-        }
+        // Find the correct insertion position (sorted by timestamp descending) by binary search
+        int insertIndex = SmsMessageOrder.insertionIndex(smsMessages, smsMessage.getTimestamp());
 
         smsMessages.add(insertIndex, smsMessage);
         notifyItemInserted(insertIndex);
@@ -88,32 +135,63 @@ public class SmsAdapter extends RecyclerView.Adapter<SmsAdapter.SmsViewHolder> {
     }
 
     /**
-     * Update an existing SMS message by finding it based on timestamp and sender
+     * Update an existing SMS message by finding it based on timestamp, sender and content
      */
     public boolean updateSmsMessage(SmsMessage updatedMessage) {
-        for (int i = 0; i < smsMessages.size(); i++) {
-            SmsMessage existingMessage = smsMessages.get(i);
-            // Match by timestamp and sender to identify the same message
-            if (existingMessage.getTimestamp() == updatedMessage.getTimestamp() &&
-                existingMessage.getSender().equals(updatedMessage.getSender())) {
-                smsMessages.set(i, updatedMessage);
-                notifyItemChanged(i);
-                return true;
+        // Match by timestamp, sender and content to identify the same message (binary search on timestamp);
+        // two SMS from one sender can arrive within the same notification timestamp
+        int index = SmsMessageOrder.indexOf(smsMessages, updatedMessage.getTimestamp(),
+                updatedMessage.getSender(), updatedMessage.getContent());
+        if (index < 0) {
+            return false; // Message not found
+        }
+        smsMessages.set(index, updatedMessage);
+        notifyItemChanged(index);
+        return true;
+    }
+
+    /**
+     * Apply one frame of changes as a single diff: inserts at their sorted positions, status-only
+     * rebinds for changed rows. RecyclerView merges these notifications into one layout pass.
+     * @return false if a changed message is not in the list (caller should reload)
+     */
+    public boolean applyChanges(List<SmsMessage> addedMessages, List<SmsMessage> changedMessages) {
+        for (SmsMessage message : addedMessages) {
+            // The list may already contain it if it was reloaded after the message was stored
+            int index = SmsMessageOrder.indexOf(smsMessages, message.getTimestamp(), message.getSender(), message.getContent());
+            if (index >= 0) {
+                smsMessages.set(index, message);
+                notifyItemChanged(index);
+            } else {
+                int insertIndex = SmsMessageOrder.insertionIndex(smsMessages, message.getTimestamp());
+                smsMessages.add(insertIndex, message);
+                notifyItemInserted(insertIndex);
+            }
+        }
+
+        boolean allFound = true;
+        for (SmsMessage message : changedMessages) {
+            int index = SmsMessageOrder.indexOf(smsMessages, message.getTimestamp(), message.getSender(), message.getContent());
+            if (index < 0) {
+                allFound = false;
+                continue;
             }
+            smsMessages.set(index, message);
+            notifyItemChanged(index, PAYLOAD_FORWARD_STATUS);
         }
-        return false; // Message not found
+        return allFound;
     }
 
     /**
      * Update all messages with new data (more efficient than clear + add all)
      */
     public void updateAllMessages(List<SmsMessage> newMessages) {
-        // Sort new messages by timestamp in descending order (newest first)
-        List<SmsMessage> sortedMessages = new ArrayList<>(newMessages);
-        sortedMessages.sort((msg1, msg2) -> Long.compare(msg2.getTimestamp(), msg1.getTimestamp()));
-
         smsMessages.clear();
-        smsMessages.addAll(sortedMessages);
+        smsMessages.addAll(newMessages);
+        // SmsDataManager already returns newest first; only sort input that is out of order
+        if (!SmsMessageOrder.isNewestFirst(smsMessages)) {
+            smsMessages.sort(SmsMessageOrder.NEWEST_FIRST);
+        }
         notifyDataSetChanged();
     }
     
@@ -129,6 +207,7 @@ public class SmsAdapter extends RecyclerView.Adapter<SmsAdapter.SmsViewHolder> {
         private TextView verificationCodesText;
         private TextView forwardStatusIndicator;
         private TextView packageText;
+        private SmsMessage boundMessage;
         
         public SmsViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -140,9 +219,23 @@ public class SmsAdapter extends RecyclerView.Adapter<SmsAdapter.SmsViewHolder> {
             verificationCodesText = itemView.findViewById(R.id.verificationCodesText);
             forwardStatusIndicator = itemView.findViewById(R.id.forwardStatusIndicator);
             packageText = itemView.findViewById(R.id.packageText);
+
+            // One click handler per row view, reading the currently bound message (no lambda per bind)
+            verificationCodesText.setOnClickListener(v -> copyPrimaryCode());
+        }
+
+        private void copyPrimaryCode() {
+            String primaryCode = boundMessage != null ? boundMessage.getPrimaryVerificationCode() : null;
+            if (primaryCode != null) {
+                copyToClipboard(primaryCode);
+                Toast.makeText(context, context.getString(R.string.toast_code_copied, primaryCode),
+                             Toast.LENGTH_SHORT).show();
+            }
         }
         
         public void bind(SmsMessage smsMessage) {
+            boundMessage = smsMessage;
+
             // Set sender and timestamp
             senderText.setText(smsMessage.getSender());
             timestampText.setText(smsMessage.getFormattedTimestamp());
@@ -157,19 +250,8 @@ public class SmsAdapter extends RecyclerView.Adapter<SmsAdapter.SmsViewHolder> {
             if (smsMessage.hasVerificationCodes()) {
                 verificationCodesLayout.setVisibility(View.VISIBLE);
 
-                // Display all verification codes
-                String codesText = String.join(", ", smsMessage.getVerificationCodes());
-                verificationCodesText.setText(codesText);
-
-                // Set up click to copy functionality
-                verificationCodesText.setOnClickListener(v -> {
-                    String primaryCode = smsMessage.getPrimaryVerificationCode();
-                    if (primaryCode != null) {
-                        copyToClipboard(primaryCode);
-                        Toast.makeText(context, context.getString(R.string.toast_code_copied, primaryCode),
-                                     Toast.LENGTH_SHORT).show();
-                    }
-                });
+                // Display all verification codes (joined once per message; click to copy is set up in the constructor)
+                verificationCodesText.setText(smsMessage.getVerificationCodesText());
 
                 // Update unified forwarding status indicator
                 updateForwardStatusIndicator(smsMessage);
@@ -179,44 +261,32 @@ public class SmsAdapter extends RecyclerView.Adapter<SmsAdapter.SmsViewHolder> {
             }
         }
         
+        /**
+         * Rebind only the forwarding status of an already bound row
+         */
+        void bindForwardStatus(SmsMessage smsMessage) {
+            boundMessage = smsMessage;
+            if (smsMessage.hasVerificationCodes()) {
+                updateForwardStatusIndicator(smsMessage);
+            }
+        }
+
         /**
          * Update unified forwarding status indicator based on SMS message forward status
          */
         private void updateForwardStatusIndicator(SmsMessage smsMessage) {
             ForwardStatus status = smsMessage.getForwardStatus();
+            StatusStyle style = status != null ? statusStyles[status.ordinal()] : null;
 
-            if (status == null || status == ForwardStatus.DISABLED) {
+            if (style == null) {
                 forwardStatusIndicator.setVisibility(View.GONE);
                 return;
             }
 
             forwardStatusIndicator.setVisibility(View.VISIBLE);
-
-            switch (status) {
-                case NOT_SENT:
-                    forwardStatusIndicator.setText(context.getString(R.string.forward_status_not_sent));
-                    forwardStatusIndicator.setTextColor(context.getResources().getColor(android.R.color.white));
-                    forwardStatusIndicator.setBackgroundColor(context.getResources().getColor(android.R.color.darker_gray));
-                    break;
-                case SENDING:
-                    forwardStatusIndicator.setText(context.getString(R.string.forward_status_sending));
-                    forwardStatusIndicator.setTextColor(context.getResources().getColor(android.R.color.white));
-                    forwardStatusIndicator.setBackgroundColor(context.getResources().getColor(android.R.color.holo_orange_dark));
-                    break;
-                case SUCCESS:
-                    forwardStatusIndicator.setText(context.getString(R.string.forward_status_success));
-                    forwardStatusIndicator.setTextColor(context.getResources().getColor(android.R.color.white));
-                    forwardStatusIndicator.setBackgroundColor(context.getResources().getColor(android.R.color.holo_green_dark));
-                    break;
-                case FAILED:
-                    forwardStatusIndicator.setText(context.getString(R.string.forward_status_failed));
-                    forwardStatusIndicator.setTextColor(context.getResources().getColor(android.R.color.white));
-                    forwardStatusIndicator.setBackgroundColor(context.getResources().getColor(android.R.color.holo_red_dark));
-                    break;
-                default:
-                    forwardStatusIndicator.setVisibility(View.GONE);
-                    break;
-            }
+            forwardStatusIndicator.setText(style.label);
+            forwardStatusIndicator.setTextColor(style.textColor);
+            forwardStatusIndicator.setBackgroundColor(style.backgroundColor);
         }
 
         private void copyToClipboard(String text) {
@@ -0,0 +1,23 @@
+package com.cht.smsforward.util;
+
+import java.util.List;
+
+/**
+ * Android-free verification code extraction interface
+ */
+public interface CodeExtractor {
+    /**
+     * Extract all potential verification codes using the rules selected for the sender (sender may be null)
+     */
+    List<String> extractVerificationCodes(String smsContent, String sender);
+
+    /**
+     * Get the most likely verification code, or null if there is none
+     */
+    String getPrimaryVerificationCode(String smsContent, String sender);
+
+    /**
+     * Quick keyword prefilter: whether the content has verification context at all
+     */
+    boolean hasVerificationKeywords(String smsContent, String sender);
+}
@@ -0,0 +1,58 @@
+package com.cht.smsforward.util;
+
+/**
+ * 64-bit content fingerprints for duplicate detection (pure Java, no allocation)
+ * FNV-1a over the UTF-16 chars of each part, with a separator between parts so that ("ab", "c") and
+ * ("a", "bc") differ, finished with the MurmurHash3 fmix64 step for good bit dispersion.
+ * Usage: {@code ContentFingerprint.finish(ContentFingerprint.add(ContentFingerprint.add(SEED, a), b))}
+ */
+public final class ContentFingerprint {
+
+    public static final long SEED = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+    // null 和空字符串需要得到不同的指纹
+    private static final long NULL_MARKER = 0x9e3779b97f4a7c15L;
+    private static final char SEPARATOR = '\u001f';
+
+    private ContentFingerprint() {
+    }
+
+    /**
+     * Mix a string part into the running hash
+     */
+    public static long add(long hash, CharSequence part) {
+        if (part == null) {
+            return (hash ^ NULL_MARKER) * PRIME;
+        }
+        for (int i = 0, length = part.length(); i < length; i++) {
+            hash = (hash ^ part.charAt(i)) * PRIME;
+        }
+        return (hash ^ SEPARATOR) * PRIME;
+    }
+
+    /**
+     * Mix a numeric part (timestamp, id) into the running hash
+     */
+    public static long add(long hash, long value) {
+        for (int shift = 0; shift < 64; shift += 16) {
+            hash = (hash ^ ((value >>> shift) & 0xffff)) * PRIME;
+        }
+        return (hash ^ SEPARATOR) * PRIME;
+    }
+
+    public static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe53a86c3L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Fingerprint of an SMS identity: content and sender
+     */
+    public static long of(String content, String sender) {
+        return finish(add(add(SEED, content), sender));
+    }
+}
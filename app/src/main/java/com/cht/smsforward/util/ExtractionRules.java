@@ -0,0 +1,310 @@
+package com.cht.smsforward.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable, pre-compiled verification code extraction rules
+ * A rule set has a version, a default profile and optional sender-specific profiles
+ * selected by longest sender prefix. Instances are swapped atomically in RuleBasedCodeExtractor.
+ */
+public final class ExtractionRules {
+
+    /**
+     * Placeholder in pattern regexes that is replaced by the profile's length range, e.g. "\\d{len}"
+     */
+    public static final String LENGTH_PLACEHOLDER = "{len}";
+
+    /**
+     * Priority tier of a pattern
+     */
+    public enum Tier {
+        /**
+         * Keyword-anchored pattern; a numeric hit is confident enough to stop searching
+         */
+        ANCHOR,
+
+        /**
+         * Keyword pattern; a hit suppresses the fallback patterns
+         */
+        KEYWORD,
+
+        /**
+         * Generic pattern used only when no anchor/keyword pattern matched
+         */
+        FALLBACK;
+
+        /**
+         * Parse a tier name; a pattern without a tier is FALLBACK
+         * @throws IllegalArgumentException for an unknown tier name, so a mistyped rule file is rejected
+         */
+        public static Tier fromValue(String value) {
+            if (value == null) {
+                return FALLBACK;
+            }
+            for (Tier tier : values()) {
+                if (tier.name().equalsIgnoreCase(value)) {
+                    return tier;
+                }
+            }
+            throw new IllegalArgumentException("Unknown pattern tier: " + value);
+        }
+    }
+
+    /**
+     * A compiled pattern with its priority tier
+     */
+    public static final class CodePattern {
+        private final Pattern pattern;
+        private final Tier tier;
+
+        public CodePattern(Pattern pattern, Tier tier) {
+            this.pattern = pattern;
+            this.tier = tier;
+        }
+
+        public Pattern getPattern() {
+            return pattern;
+        }
+
+        public Tier getTier() {
+            return tier;
+        }
+    }
+
+    /**
+     * Compiled matcher configuration for one sender group (or the defaults)
+     */
+    public static final class Profile {
+        private final String name;
+        private final String[] keywords;
+        private final CodePattern[] patterns;
+        private final int minLength;
+        private final int maxLength;
+        private final Set<String> stopWords;
+        private final String keywordFirstChars;
+
+        public Profile(String name, List<String> keywords, List<String> patternRegexes, List<Tier> tiers,
+                       int minLength, int maxLength, Set<String> stopWords) {
+            if (minLength <= 0 || maxLength < minLength) {
+                throw new IllegalArgumentException("Invalid code length range " + minLength + "-" + maxLength + " for " + name);
+            }
+            if (patternRegexes.size() != tiers.size()) {
+                throw new IllegalArgumentException("Every pattern needs a tier for " + name);
+            }
+
+            this.name = name;
+            this.minLength = minLength;
+            this.maxLength = maxLength;
+
+            // 关键词统一转为小写，匹配时无需重复转换
+            this.keywords = new String[keywords.size()];
+            for (int i = 0; i < keywords.size(); i++) {
+                this.keywords[i] = keywords.get(i).toLowerCase(Locale.ROOT);
+            }
+
+            // 正则只编译一次
+            String lengthRange = "{" + minLength + "," + maxLength + "}";
+            this.patterns = new CodePattern[patternRegexes.size()];
+            for (int i = 0; i < patternRegexes.size(); i++) {
+                String regex = patternRegexes.get(i).replace(LENGTH_PLACEHOLDER, lengthRange);
+                this.patterns[i] = new CodePattern(Pattern.compile(regex), tiers.get(i));
+            }
+
+            // 关键词首字符（大小写两种形式），扫描时先用它快速过滤
+            StringBuilder firstChars = new StringBuilder();
+            for (String keyword : this.keywords) {
+                if (keyword.isEmpty()) {
+                    continue;
+                }
+                char first = keyword.charAt(0);
+                for (char c : new char[] {first, Character.toUpperCase(first)}) {
+                    if (firstChars.indexOf(String.valueOf(c)) == -1) {
+                        firstChars.append(c);
+                    }
+                }
+            }
+            this.keywordFirstChars = firstChars.toString();
+
+            Set<String> lowerStopWords = new HashSet<>();
+            for (String stopWord : stopWords) {
+                lowerStopWords.add(stopWord.toLowerCase(Locale.ROOT));
+            }
+            this.stopWords = Collections.unmodifiableSet(lowerStopWords);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Lower-cased context keywords
+         */
+        public String[] getKeywords() {
+            return keywords;
+        }
+
+        /**
+         * Find the first keyword occurrence at or after fromIndex, ignoring case, without copying the text
+         * @return the index of the keyword, or -1 if no keyword occurs
+         */
+        public int indexOfKeyword(String text, int fromIndex) {
+            int length = text.length();
+            for (int i = Math.max(0, fromIndex); i < length; i++) {
+                if (keywordFirstChars.indexOf(text.charAt(i)) == -1) {
+                    continue;
+                }
+                for (String keyword : keywords) {
+                    if (!keyword.isEmpty() && text.regionMatches(true, i, keyword, 0, keyword.length())) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        public CodePattern[] getPatterns() {
+            return patterns;
+        }
+
+        public int getMinLength() {
+            return minLength;
+        }
+
+        public int getMaxLength() {
+            return maxLength;
+        }
+
+        public boolean isStopWord(String lowerCaseCandidate) {
+            return stopWords.contains(lowerCaseCandidate);
+        }
+    }
+
+    private final int version;
+    private final Profile defaultProfile;
+    private final SenderPrefixTrie<Profile> senderProfiles;
+
+    public ExtractionRules(int version, Profile defaultProfile, SenderPrefixTrie<Profile> senderProfiles) {
+        if (defaultProfile == null) {
+            throw new IllegalArgumentException("Default profile is required");
+        }
+        this.version = version;
+        this.defaultProfile = defaultProfile;
+        this.senderProfiles = senderProfiles != null ? senderProfiles : new SenderPrefixTrie<>();
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public Profile getDefaultProfile() {
+        return defaultProfile;
+    }
+
+    /**
+     * Select the profile for a sender, falling back to the default profile
+     */
+    public Profile profileFor(String sender) {
+        Profile profile = senderProfiles.findLongestPrefix(sender);
+        return profile != null ? profile : defaultProfile;
+    }
+
+    public int getSenderProfileCount() {
+        return senderProfiles.size();
+    }
+
+    // Built-in rules (version 0), used until a rule file has been loaded
+
+    static final List<String> DEFAULT_KEYWORDS = Arrays.asList(
+        "verification", "verify", "code", "pin", "otp", "auth",
+        "验证码", "驗證碼", "認證碼", "认证码"
+    );
+
+    static final List<String> DEFAULT_PATTERNS = Arrays.asList(
+        // Codes with specific keywords (highest priority)
+        "(?i)(?:code|verification|verify|pin|otp)[:\\s]*([A-Za-z0-9]{len})",
+        // Chinese/international verification code patterns - enhanced for "为" keyword
+        "(?i)(?:验证码|驗證碼|認證碼|认证码)(?:为|為|是|：|:)\\s*([A-Za-z0-9]{len})",
+        // Additional Chinese pattern for "您的验证码为XXXX" format
+        "(?i)您的验证码为([A-Za-z0-9]{len})",
+        // Codes in parentheses or brackets
+        "[\\(\\[]([A-Za-z0-9]{len})[\\)\\]]",
+        // Codes after colon or dash
+        "[:：-]\\s*([A-Za-z0-9]{len})\\b",
+        // 4-8 digit numbers (most common, but lower priority to avoid false positives)
+        "\\b\\d{len}\\b",
+        // Alphanumeric codes (lowest priority)
+        "\\b[A-Za-z0-9]{len}\\b"
+    );
+
+    static final List<Tier> DEFAULT_TIERS = Arrays.asList(
+        Tier.ANCHOR, Tier.ANCHOR, Tier.KEYWORD,
+        Tier.FALLBACK, Tier.FALLBACK, Tier.FALLBACK, Tier.FALLBACK
+    );
+
+    // Filter out common English words that might match patterns
+    static final List<String> DEFAULT_STOP_WORDS = Arrays.asList(
+        "your", "code", "the", "this", "that", "with", "from", "have", "will", "been",
+        "they", "were", "please", "enter", "complete", "login", "verify", "account",
+        "phone", "number", "message"
+    );
+
+    /**
+     * Rules equivalent to the historical hard-coded extractor behaviour
+     */
+    public static ExtractionRules builtIn() {
+        Profile profile = new Profile("default", DEFAULT_KEYWORDS, DEFAULT_PATTERNS, DEFAULT_TIERS,
+                4, 8, new HashSet<>(DEFAULT_STOP_WORDS));
+        return new ExtractionRules(0, profile, null);
+    }
+
+    /**
+     * Mutable builder for a profile that inherits unset fields from a parent profile definition
+     */
+    static final class ProfileSpec {
+        List<String> keywords;
+        List<String> patterns;
+        List<Tier> tiers;
+        Integer minLength;
+        Integer maxLength;
+        List<String> stopWords;
+
+        ProfileSpec inherit(ProfileSpec parent) {
+            ProfileSpec merged = new ProfileSpec();
+            merged.keywords = keywords != null ? keywords : parent.keywords;
+            merged.patterns = patterns != null ? patterns : parent.patterns;
+            merged.tiers = patterns != null ? tiers : parent.tiers;
+            merged.minLength = minLength != null ? minLength : parent.minLength;
+            merged.maxLength = maxLength != null ? maxLength : parent.maxLength;
+            merged.stopWords = stopWords != null ? stopWords : parent.stopWords;
+            return merged;
+        }
+
+        Profile compile(String name) {
+            return new Profile(name,
+                    keywords != null ? keywords : new ArrayList<>(),
+                    patterns != null ? patterns : new ArrayList<>(),
+                    tiers != null ? tiers : new ArrayList<>(),
+                    minLength != null ? minLength : 4,
+                    maxLength != null ? maxLength : 8,
+                    stopWords != null ? new HashSet<>(stopWords) : new HashSet<>());
+        }
+
+        static ProfileSpec builtIn() {
+            ProfileSpec spec = new ProfileSpec();
+            spec.keywords = DEFAULT_KEYWORDS;
+            spec.patterns = DEFAULT_PATTERNS;
+            spec.tiers = DEFAULT_TIERS;
+            spec.minLength = 4;
+            spec.maxLength = 8;
+            spec.stopWords = DEFAULT_STOP_WORDS;
+            return spec;
+        }
+    }
+}
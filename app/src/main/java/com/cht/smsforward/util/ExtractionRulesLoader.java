@@ -0,0 +1,145 @@
+package com.cht.smsforward.util;
+
+import android.content.Context;
+import android.os.FileObserver;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Loads extraction rules from the bundled asset and an optional override file
+ * The override file (files/extraction_rules.json) can be replaced at runtime; reloadIfChanged()
+ * picks it up without restarting the service. The higher rule version wins.
+ * The service watches the files directory (startWatching) and calls reloadIfPending() on its
+ * extraction thread, so the file is only checked after it was written, moved or deleted.
+ */
+public class ExtractionRulesLoader {
+
+    private static final String TAG = "ExtractionRulesLoader";
+    public static final String RULES_FILE_NAME = "extraction_rules.json";
+
+    private final Context context;
+    private final File overrideFile;
+
+    private ExtractionRules bundledRules;
+    // 资源中的规则只读取一次；解析失败时同样记录下来，不会在每条短信时重复读取
+    private boolean bundledLoaded;
+    private long overrideLastModified = -1;
+    private long overrideLength = -1;
+
+    // 首次调用或规则文件变化后才需要检查（FileObserver 回调线程设置，提取线程读取）
+    private volatile boolean checkPending = true;
+    private FileObserver overrideObserver;
+
+    public ExtractionRulesLoader(Context context) {
+        this.context = context.getApplicationContext();
+        this.overrideFile = new File(this.context.getFilesDir(), RULES_FILE_NAME);
+    }
+
+    /**
+     * Get the override file path that can be replaced to update rules at runtime
+     */
+    public File getOverrideFile() {
+        return overrideFile;
+    }
+
+    /**
+     * Watch the override file for changes (keeps a strong reference to the observer)
+     */
+    public synchronized void startWatching() {
+        if (overrideObserver != null) {
+            return;
+        }
+        // FileObserver(File, int) 需要 API 29；监听目录，以便发现文件被创建、替换或删除
+        overrideObserver = new FileObserver(overrideFile.getParent(),
+                FileObserver.CLOSE_WRITE | FileObserver.MOVED_TO | FileObserver.MOVED_FROM |
+                FileObserver.CREATE | FileObserver.DELETE) {
+            @Override
+            public void onEvent(int event, String path) {
+                if (RULES_FILE_NAME.equals(path)) {
+                    checkPending = true;
+                }
+            }
+        };
+        overrideObserver.startWatching();
+    }
+
+    public synchronized void stopWatching() {
+        if (overrideObserver != null) {
+            overrideObserver.stopWatching();
+            overrideObserver = null;
+        }
+    }
+
+    /**
+     * Load the rules on first use or after the watched override file changed; otherwise a volatile read
+     */
+    public void reloadIfPending() {
+        if (!checkPending) {
+            return;
+        }
+        // 先清除标记：检查期间再次发生的修改会在下一次调用时处理
+        checkPending = false;
+        reloadIfChanged();
+    }
+
+    /**
+     * Load the rules if they were never loaded or the override file changed since the last check
+     * Cheap when nothing changed (a single file stat)
+     */
+    public synchronized void reloadIfChanged() {
+        boolean overrideExists = overrideFile.exists();
+        long lastModified = overrideExists ? overrideFile.lastModified() : -1;
+        long length = overrideExists ? overrideFile.length() : -1;
+
+        if (bundledLoaded && lastModified == overrideLastModified && length == overrideLength) {
+            return;
+        }
+
+        if (!bundledLoaded) {
+            bundledRules = loadBundledRules();
+            bundledLoaded = true;
+        }
+
+        ExtractionRules rules = bundledRules;
+        if (overrideExists) {
+            ExtractionRules overrideRules = loadOverrideRules();
+            if (overrideRules != null && (rules == null || overrideRules.getVersion() >= rules.getVersion())) {
+                rules = overrideRules;
+            } else if (overrideRules != null) {
+                Log.w(TAG, "Ignoring override rules v" + overrideRules.getVersion() +
+                        " older than bundled v" + rules.getVersion());
+            }
+        }
+
+        overrideLastModified = lastModified;
+        overrideLength = length;
+
+        if (rules != null && rules != VerificationCodeExtractor.getRules()) {
+            VerificationCodeExtractor.setRules(rules);
+        }
+    }
+
+    private ExtractionRules loadBundledRules() {
+        try (Reader reader = new InputStreamReader(context.getAssets().open(RULES_FILE_NAME), StandardCharsets.UTF_8)) {
+            return ExtractionRulesParser.parse(reader);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to load bundled extraction rules - keeping built-in rules", e);
+            return null;
+        }
+    }
+
+    private ExtractionRules loadOverrideRules() {
+        try (Reader reader = new InputStreamReader(new FileInputStream(overrideFile), StandardCharsets.UTF_8)) {
+            return ExtractionRulesParser.parse(reader);
+        } catch (Exception e) {
+            // 规则文件有误时保留当前规则，避免影响验证码识别
+            Log.e(TAG, "Failed to load override extraction rules from " + overrideFile, e);
+            return null;
+        }
+    }
+}
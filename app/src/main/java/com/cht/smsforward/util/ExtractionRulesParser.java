@@ -0,0 +1,117 @@
+package com.cht.smsforward.util;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Parses a versioned extraction rule file into compiled ExtractionRules
+ *
+ * Format:
+ * {
+ *   "version": 2,
+ *   "defaults": { "keywords": [...], "minLength": 4, "maxLength": 8, "stopWords": [...],
+ *                 "patterns": [ { "tier": "anchor", "regex": "...{len}..." }, ... ] },
+ *   "senders": [ { "prefix": "95588", "keywords": [...], "patterns": [...] }, ... ]
+ * }
+ * Missing default fields fall back to the built-in rules, missing sender fields to the defaults.
+ */
+public class ExtractionRulesParser {
+
+    /**
+     * Parse and compile a rule file
+     * @throws IllegalArgumentException if the file is malformed or a pattern does not compile
+     */
+    public static ExtractionRules parse(Reader reader) {
+        try {
+            JsonElement rootElement = JsonParser.parseReader(reader);
+            if (!rootElement.isJsonObject()) {
+                throw new IllegalArgumentException("Rule file root must be an object");
+            }
+            JsonObject root = rootElement.getAsJsonObject();
+
+            if (!root.has("version")) {
+                throw new IllegalArgumentException("Rule file has no version");
+            }
+            int version = root.get("version").getAsInt();
+
+            ExtractionRules.ProfileSpec defaults = ExtractionRules.ProfileSpec.builtIn();
+            if (root.has("defaults")) {
+                defaults = parseProfileSpec(root.getAsJsonObject("defaults")).inherit(defaults);
+            }
+            ExtractionRules.Profile defaultProfile = defaults.compile("default");
+
+            SenderPrefixTrie<ExtractionRules.Profile> senderProfiles = new SenderPrefixTrie<>();
+            if (root.has("senders")) {
+                for (JsonElement element : root.getAsJsonArray("senders")) {
+                    JsonObject sender = element.getAsJsonObject();
+                    ExtractionRules.Profile profile = parseProfileSpec(sender).inherit(defaults)
+                            .compile(sender.has("name") ? sender.get("name").getAsString() : "sender");
+
+                    // 一个规则可以对应多个发送方前缀
+                    for (String prefix : readPrefixes(sender)) {
+                        senderProfiles.put(prefix, profile);
+                    }
+                }
+            }
+
+            return new ExtractionRules(version, defaultProfile, senderProfiles);
+        } catch (JsonParseException | IllegalStateException | ClassCastException | PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid extraction rule file: " + e.getMessage(), e);
+        }
+    }
+
+    private static ExtractionRules.ProfileSpec parseProfileSpec(JsonObject json) {
+        ExtractionRules.ProfileSpec spec = new ExtractionRules.ProfileSpec();
+
+        if (json.has("keywords")) {
+            spec.keywords = readStrings(json.getAsJsonArray("keywords"));
+        }
+        if (json.has("stopWords")) {
+            spec.stopWords = readStrings(json.getAsJsonArray("stopWords"));
+        }
+        if (json.has("minLength")) {
+            spec.minLength = json.get("minLength").getAsInt();
+        }
+        if (json.has("maxLength")) {
+            spec.maxLength = json.get("maxLength").getAsInt();
+        }
+        if (json.has("patterns")) {
+            spec.patterns = new ArrayList<>();
+            spec.tiers = new ArrayList<>();
+            for (JsonElement element : json.getAsJsonArray("patterns")) {
+                JsonObject pattern = element.getAsJsonObject();
+                spec.patterns.add(pattern.get("regex").getAsString());
+                spec.tiers.add(ExtractionRules.Tier.fromValue(
+                        pattern.has("tier") ? pattern.get("tier").getAsString() : null));
+            }
+        }
+        return spec;
+    }
+
+    private static List<String> readPrefixes(JsonObject sender) {
+        if (sender.has("prefixes")) {
+            return readStrings(sender.getAsJsonArray("prefixes"));
+        }
+        List<String> prefixes = new ArrayList<>();
+        if (sender.has("prefix")) {
+            prefixes.add(sender.get("prefix").getAsString());
+        }
+        return prefixes;
+    }
+
+    private static List<String> readStrings(JsonArray array) {
+        List<String> values = new ArrayList<>(array.size());
+        for (JsonElement element : array) {
+            values.add(element.getAsString());
+        }
+        return values;
+    }
+}
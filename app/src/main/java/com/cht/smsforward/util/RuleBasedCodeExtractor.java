@@ -0,0 +1,288 @@
+package com.cht.smsforward.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+
+/**
+ * Rule-driven verification code extractor (pure Java, no Android dependencies)
+ * Holds the active ExtractionRules and the per-sender template cache; VerificationCodeExtractor
+ * exposes a shared instance to the app and the benchmark module uses it directly.
+ */
+public class RuleBasedCodeExtractor implements CodeExtractor {
+
+    // 关键词之后用于锚定匹配的窗口长度（关键词 + 分隔符 + 验证码）
+    private static final int ANCHOR_WINDOW = 32;
+
+    // 按发送方学习的短信模板缓存（有界LRU）
+    private static final int TEMPLATE_CACHE_SIZE = 64;
+
+    // 当前生效的规则集，可在运行时原子替换
+    private volatile ExtractionRules activeRules;
+    private final SenderTemplateCache templateCache = new SenderTemplateCache(TEMPLATE_CACHE_SIZE);
+
+    public RuleBasedCodeExtractor(ExtractionRules rules) {
+        setRules(rules);
+    }
+
+    /**
+     * Replace the active extraction rules; takes effect for the next extraction without restart
+     */
+    public void setRules(ExtractionRules rules) {
+        if (rules == null) {
+            throw new IllegalArgumentException("Extraction rules must not be null");
+        }
+        activeRules = rules;
+        templateCache.clear(); // 模板基于旧规则学习，规则变化后重新学习
+    }
+
+    public ExtractionRules getRules() {
+        return activeRules;
+    }
+
+    /**
+     * Get the per-sender template cache (hit/miss counters for diagnostics)
+     */
+    public SenderTemplateCache getTemplateCache() {
+        return templateCache;
+    }
+
+    @Override
+    public List<String> extractVerificationCodes(String smsContent, String sender) {
+        ExtractionRules rules = activeRules;
+        ExtractionRules.Profile profile = rules.profileFor(sender);
+
+        if (smsContent == null || smsContent.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 关键词门槛对模板命中同样适用：同一发送方不含关键词的短信（订单、营销等）不取码
+        int keywordIndex = profile.indexOfKeyword(smsContent, 0);
+        if (keywordIndex == -1) {
+            return new ArrayList<>(); // 早期返回，避免不必要的正则处理
+        }
+
+        // Step 0: 同一发送方的模板命中时直接取码，无需运行正则
+        if (sender != null) {
+            String templateCode = templateCache.match(sender, smsContent, rules.getVersion());
+            if (templateCode != null) {
+                if (isValidVerificationCode(templateCode, true, profile)) {
+                    List<String> codes = new ArrayList<>(1);
+                    codes.add(templateCode);
+                    return codes;
+                }
+                templateCache.forget(sender);
+            }
+        }
+
+        List<String> codes = extractWithProfile(smsContent, keywordIndex, profile);
+
+        // 通过完整路径找到验证码后学习（或刷新）该发送方的模板
+        if (sender != null) {
+            String primaryCode = selectPrimaryCode(codes);
+            if (primaryCode != null) {
+                templateCache.learn(sender, smsContent, primaryCode, rules.getVersion());
+            }
+        }
+
+        return codes;
+    }
+
+    @Override
+    public String getPrimaryVerificationCode(String smsContent, String sender) {
+        return selectPrimaryCode(extractVerificationCodes(smsContent, sender));
+    }
+
+    @Override
+    public boolean hasVerificationKeywords(String smsContent, String sender) {
+        return smsContent != null && activeRules.profileFor(sender).indexOfKeyword(smsContent, 0) != -1;
+    }
+
+    /**
+     * Run the full heuristic cascade of a rule profile
+     */
+    private List<String> extractWithProfile(String smsContent, int keywordIndex, ExtractionRules.Profile profile) {
+        List<String> codes = new ArrayList<>();
+
+        // Step 1: 流式扫描关键词（不截断、不复制文本），在第一个关键词起的附近锚定匹配，
+        // 找到明确的验证码立即返回，耗时取决于验证码出现的位置而不是消息长度
+        String confidentCode = scanAnchoredCode(smsContent, keywordIndex, profile);
+        if (confidentCode != null) {
+            codes.add(confidentCode);
+            return codes; // 早期返回
+        }
+
+        // Step 2: 没有锚定命中时对全文按优先级匹配 - 找到高优先级代码就停止低优先级模式
+        boolean foundHighPriorityCode = false;
+
+        for (ExtractionRules.CodePattern codePattern : profile.getPatterns()) {
+            ExtractionRules.Tier tier = codePattern.getTier();
+
+            // 对于高优先级模式（anchor/keyword），如果已经找到代码就跳过低优先级模式
+            if (foundHighPriorityCode && tier == ExtractionRules.Tier.FALLBACK) {
+                break;
+            }
+
+            Matcher matcher = codePattern.getPattern().matcher(smsContent);
+
+            while (matcher.find()) {
+                String code;
+
+                // Some patterns have groups, others match the entire pattern
+                if (matcher.groupCount() > 0) {
+                    code = matcher.group(1); // Get the captured group
+                } else {
+                    code = matcher.group(0); // Get the entire match
+                }
+
+                if (code != null && isValidVerificationCode(code, true, profile)) {
+                    if (!codes.contains(code)) {
+                        codes.add(code);
+
+                        // 如果是高优先级模式找到了代码，标记为已找到
+                        if (tier != ExtractionRules.Tier.FALLBACK) {
+                            foundHighPriorityCode = true;
+                        }
+
+                        // 性能优化：如果找到了明确的验证码，不需要继续搜索
+                        if (tier == ExtractionRules.Tier.ANCHOR && isNumeric(code)) {
+                            return codes; // 早期返回
+                        }
+                    }
+                }
+            }
+        }
+
+        return codes;
+    }
+    
+    /**
+     * Walk keyword hits from left to right and try the anchor patterns in a short window after each hit
+     * Matchers work on regions of the original text, nothing is copied.
+     * @return the first confident (numeric, anchor-tier) code, or null if there is none
+     */
+    private String scanAnchoredCode(String smsContent, int firstKeywordIndex, ExtractionRules.Profile profile) {
+        ExtractionRules.CodePattern[] patterns = profile.getPatterns();
+        Matcher[] matchers = null;
+        int length = smsContent.length();
+
+        for (int keywordIndex = firstKeywordIndex; keywordIndex != -1;
+             keywordIndex = profile.indexOfKeyword(smsContent, keywordIndex + 1)) {
+
+            // 窗口末尾不能切断字母数字串，否则会得到被截断的验证码
+            int windowEnd = Math.min(length, keywordIndex + ANCHOR_WINDOW);
+            while (windowEnd < length && isAsciiLetterOrDigit(smsContent.charAt(windowEnd))) {
+                windowEnd++;
+            }
+
+            for (int i = 0; i < patterns.length; i++) {
+                if (patterns[i].getTier() != ExtractionRules.Tier.ANCHOR) {
+                    continue;
+                }
+
+                if (matchers == null) {
+                    matchers = new Matcher[patterns.length];
+                }
+                Matcher matcher = matchers[i];
+                if (matcher == null) {
+                    matcher = patterns[i].getPattern().matcher(smsContent);
+                    matcher.useTransparentBounds(true); // \b 等边界判断可以看到窗口外的字符
+                    matchers[i] = matcher;
+                }
+                matcher.region(keywordIndex, windowEnd);
+
+                while (matcher.find()) {
+                    String code = matcher.groupCount() > 0 ? matcher.group(1) : matcher.group(0);
+                    if (code != null && isNumeric(code) && isValidVerificationCode(code, true, profile)) {
+                        return code;
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+
+    /**
+     * Validate if a potential code is actually a verification code
+     */
+    static boolean isValidVerificationCode(String code, boolean hasVerificationContext,
+                                           ExtractionRules.Profile profile) {
+        if (code == null || code.trim().isEmpty()) {
+            return false;
+        }
+
+        code = code.trim();
+
+        // Length check
+        if (code.length() < profile.getMinLength() || code.length() > profile.getMaxLength()) {
+            return false;
+        }
+
+        // Filter out common words that might match patterns (hash set lookup)
+        if (profile.isStopWord(code.toLowerCase())) {
+            return false;
+        }
+
+        // Must contain at least one digit and only ASCII letters/digits
+        boolean hasDigit = false;
+        for (int i = 0; i < code.length(); i++) {
+            char c = code.charAt(i);
+            if (c >= '0' && c <= '9') {
+                hasDigit = true;
+            } else if (!((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z'))) {
+                return false;
+            }
+        }
+        if (!hasDigit) {
+            return false;
+        }
+
+        // If no verification context, be more strict (this should not happen due to step 1 check)
+        if (!hasVerificationContext) {
+            return isNumeric(code);
+        }
+
+        // With verification context, allow alphanumeric codes
+        return true;
+    }
+
+    /**
+     * Check whether a code consists of ASCII digits only
+     */
+    public static boolean isNumeric(String code) {
+        if (code.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < code.length(); i++) {
+            char c = code.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Pick the primary code from already extracted codes
+     */
+    public static String selectPrimaryCode(List<String> codes) {
+        if (codes == null || codes.isEmpty()) {
+            return null;
+        }
+        
+        // Prefer numeric codes
+        for (String code : codes) {
+            if (isNumeric(code)) {
+                return code;
+            }
+        }
+        
+        // Return the first alphanumeric code
+        return codes.get(0);
+    }
+}
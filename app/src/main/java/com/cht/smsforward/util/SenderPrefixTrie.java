@@ -0,0 +1,90 @@
+package com.cht.smsforward.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Character trie mapping sender prefixes (service numbers, sender names) to values
+ * Lookup returns the value of the longest registered prefix of the sender
+ */
+public class SenderPrefixTrie<V> {
+
+    private final Node<V> root = new Node<>();
+    private int size;
+
+    private static class Node<V> {
+        private Map<Character, Node<V>> children;
+        private V value;
+    }
+
+    /**
+     * Register a value for the given sender prefix (whitespace is ignored)
+     */
+    public void put(String prefix, V value) {
+        if (prefix == null || value == null) {
+            return;
+        }
+
+        Node<V> node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            if (node.children == null) {
+                node.children = new HashMap<>();
+            }
+            Node<V> child = node.children.get(c);
+            if (child == null) {
+                child = new Node<>();
+                node.children.put(c, child);
+            }
+            node = child;
+        }
+
+        if (node == root) {
+            return; // 空前缀没有意义，使用默认规则即可
+        }
+        if (node.value == null) {
+            size++;
+        }
+        node.value = value;
+    }
+
+    /**
+     * Find the value registered for the longest prefix of the sender, or null if none matches
+     */
+    public V findLongestPrefix(String sender) {
+        if (sender == null || root.children == null) {
+            return null;
+        }
+
+        V match = null;
+        Node<V> node = root;
+        for (int i = 0; i < sender.length(); i++) {
+            char c = sender.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            if (node.children == null) {
+                break;
+            }
+            node = node.children.get(c);
+            if (node == null) {
+                break;
+            }
+            if (node.value != null) {
+                match = node.value;
+            }
+        }
+        return match;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,207 @@
+package com.cht.smsforward.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small bounded LRU cache of per-sender message templates
+ * Banks and services send OTPs with an identical template every time, so once a code has been
+ * found the fixed text around it (prefix/suffix), its offset and length are remembered. The next
+ * message from the same sender is checked against the template with plain string compares
+ * before the regex cascade runs.
+ */
+public class SenderTemplateCache {
+
+    // 模板锚点最多保留的字符数（验证码前取较长的固定文本，后面只取少量以容忍时间等变化内容）
+    static final int PREFIX_LENGTH = 12;
+    static final int SUFFIX_LENGTH = 4;
+    // 前缀太短时无法可靠定位验证码
+    static final int MIN_PREFIX_LENGTH = 2;
+
+    private final int maxSize;
+    private final Map<String, Template> templates;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Learned template: fixed text before and after the code plus the code's position and shape
+     */
+    static final class Template {
+        final String prefix;
+        final String suffix;
+        final int offset;
+        final int codeLength;
+        final boolean numeric;
+        final int rulesVersion;
+
+        Template(String prefix, String suffix, int offset, int codeLength, boolean numeric, int rulesVersion) {
+            this.prefix = prefix;
+            this.suffix = suffix;
+            this.offset = offset;
+            this.codeLength = codeLength;
+            this.numeric = numeric;
+            this.rulesVersion = rulesVersion;
+        }
+    }
+
+    public SenderTemplateCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.templates = new LinkedHashMap<String, Template>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+                return size() > SenderTemplateCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Try the sender's template against the content
+     * @return the code at the template position, or null on a miss
+     */
+    public String match(String sender, String content, int rulesVersion) {
+        Template template;
+        synchronized (templates) {
+            template = templates.get(sender);
+        }
+
+        String code = null;
+        if (template != null && template.rulesVersion == rulesVersion) {
+            // 先尝试学习到的位置，再退回到查找前缀（前缀前面的文本可能长度不同）
+            code = matchAt(template, content, template.offset);
+            if (code == null) {
+                int prefixIndex = content.indexOf(template.prefix);
+                if (prefixIndex != -1 && prefixIndex + template.prefix.length() != template.offset) {
+                    code = matchAt(template, content, prefixIndex + template.prefix.length());
+                }
+            }
+        }
+
+        if (code != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return code;
+    }
+
+    /**
+     * Learn (or refresh) the sender's template from a message whose code was found by the full path
+     */
+    public void learn(String sender, String content, String code, int rulesVersion) {
+        int index = findCodeIndex(content, code);
+        if (index == -1) {
+            return;
+        }
+
+        int prefixStart = Math.max(0, index - PREFIX_LENGTH);
+        if (index - prefixStart < MIN_PREFIX_LENGTH) {
+            return; // 验证码位于开头，没有可用的固定前缀
+        }
+
+        int codeEnd = index + code.length();
+        int suffixEnd = Math.min(content.length(), codeEnd + SUFFIX_LENGTH);
+
+        Template template = new Template(content.substring(prefixStart, index), content.substring(codeEnd, suffixEnd),
+                index, code.length(), isAsciiDigits(code, 0, code.length()), rulesVersion);
+        synchronized (templates) {
+            templates.put(sender, template);
+        }
+    }
+
+    /**
+     * Drop the template of a sender, e.g. after a template hit was rejected
+     */
+    public void forget(String sender) {
+        synchronized (templates) {
+            templates.remove(sender);
+        }
+    }
+
+    public void clear() {
+        synchronized (templates) {
+            templates.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (templates) {
+            return templates.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private static String matchAt(Template template, String content, int codeStart) {
+        int prefixStart = codeStart - template.prefix.length();
+        int codeEnd = codeStart + template.codeLength;
+        if (prefixStart < 0 || codeEnd + template.suffix.length() > content.length()) {
+            return null;
+        }
+
+        if (!content.regionMatches(prefixStart, template.prefix, 0, template.prefix.length())) {
+            return null;
+        }
+
+        boolean shapeMatches = template.numeric
+                ? isAsciiDigits(content, codeStart, codeEnd)
+                : isAsciiAlphanumeric(content, codeStart, codeEnd);
+        if (!shapeMatches) {
+            return null;
+        }
+
+        // 验证码后不能紧跟字母数字，否则长度与模板不一致
+        if (codeEnd < content.length() && isAsciiAlphanumeric(content, codeEnd, codeEnd + 1)) {
+            return null;
+        }
+
+        if (!content.regionMatches(codeEnd, template.suffix, 0, template.suffix.length())) {
+            return null;
+        }
+
+        return content.substring(codeStart, codeEnd);
+    }
+
+    /**
+     * Find the code as a whole token (not part of a longer letter/digit run)
+     */
+    private static int findCodeIndex(String content, String code) {
+        int index = content.indexOf(code);
+        while (index != -1) {
+            int end = index + code.length();
+            boolean startBoundary = index == 0 || !isAsciiAlphanumeric(content, index - 1, index);
+            boolean endBoundary = end == content.length() || !isAsciiAlphanumeric(content, end, end + 1);
+            if (startBoundary && endBoundary) {
+                return index;
+            }
+            index = content.indexOf(code, index + 1);
+        }
+        return -1;
+    }
+
+    private static boolean isAsciiDigits(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiAlphanumeric(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,101 @@
+package com.cht.smsforward.util;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe timestamp formatting without creating a SimpleDateFormat per call (pure Java)
+ * SimpleDateFormat is not thread-safe, so each thread keeps its own formatter and Date; java.time
+ * needs API 26 (minSdk is 23). Formatters capture the default locale and time zone when they are
+ * created; {@link #invalidate()} (called on time zone / locale changes) bumps the format epoch so
+ * every thread creates new formatters and cached texts (SmsMessage) are formatted again.
+ */
+public final class TimestampFormatter {
+
+    public static final String TIME_PATTERN = "HH:mm:ss";
+    public static final String DATE_TIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+    // 时区或语言变化时递增：各线程的格式化器和消息上缓存的文本据此失效
+    private static final AtomicInteger EPOCH = new AtomicInteger();
+
+    private static final class Formatter {
+        final SimpleDateFormat format;
+        final Date date = new Date();
+        final int epoch;
+
+        Formatter(String pattern, int epoch) {
+            this.format = new SimpleDateFormat(pattern, Locale.getDefault());
+            this.epoch = epoch;
+        }
+
+        String format(long millis) {
+            date.setTime(millis);
+            return format.format(date);
+        }
+    }
+
+    // ThreadLocal.withInitial 需要 API 26
+    private static final ThreadLocal<Formatter> TIME = new ThreadLocal<Formatter>() {
+        @Override
+        protected Formatter initialValue() {
+            return new Formatter(TIME_PATTERN, EPOCH.get());
+        }
+    };
+
+    private static final ThreadLocal<Formatter> DATE_TIME = new ThreadLocal<Formatter>() {
+        @Override
+        protected Formatter initialValue() {
+            return new Formatter(DATE_TIME_PATTERN, EPOCH.get());
+        }
+    };
+
+    private TimestampFormatter() {
+    }
+
+    /**
+     * Current format epoch; changes whenever previously formatted texts may be stale
+     */
+    public static int getEpoch() {
+        return EPOCH.get();
+    }
+
+    /**
+     * Drop all formatters and cached texts after the default time zone or locale changed
+     */
+    public static void invalidate() {
+        EPOCH.incrementAndGet();
+    }
+
+    /**
+     * Format as HH:mm:ss
+     */
+    public static String formatTime(long millis) {
+        return current(TIME, TIME_PATTERN).format(millis);
+    }
+
+    /**
+     * Format as yyyy-MM-dd HH:mm:ss
+     */
+    public static String formatDateTime(long millis) {
+        return current(DATE_TIME, DATE_TIME_PATTERN).format(millis);
+    }
+
+    private static Formatter current(ThreadLocal<Formatter> local, String pattern) {
+        Formatter formatter = local.get();
+        int epoch = EPOCH.get();
+        if (formatter.epoch != epoch) {
+            formatter = new Formatter(pattern, epoch);
+            local.set(formatter);
+        }
+        return formatter;
+    }
+
+    /**
+     * Current time as yyyy-MM-dd HH:mm:ss (message bodies of the senders)
+     */
+    public static String now() {
+        return formatDateTime(System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,73 @@
+package com.cht.smsforward.util;
+
+import com.cht.smsforward.SmsForwardApplication;
+import com.cht.smsforward.data.SmsMessage;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.os.AsyncTask;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the stored messages with sample SMS so the macrobenchmarks start and scroll a full list
+ * Exported but protected by android.permission.DUMP, which only the shell (adb) and the system hold
+ * (the same protection androidx.profileinstaller uses). Only in debug and macrobenchmark builds
+ * (src/sampleData), never in release. Usage:
+ * adb shell am broadcast -a com.cht.smsforward.action.SEED_SAMPLE_MESSAGES
+ *     -n com.cht.smsforward/.util.SampleDataReceiver --ei count 100
+ */
+public class SampleDataReceiver extends BroadcastReceiver {
+
+    private static final String TAG = "SampleDataReceiver";
+
+    public static final String ACTION_SEED = "com.cht.smsforward.action.SEED_SAMPLE_MESSAGES";
+    public static final String EXTRA_COUNT = "count";
+
+    private static final int DEFAULT_COUNT = 100;
+    private static final String PACKAGE_NAME = "com.cht.smsforward.sample";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (!ACTION_SEED.equals(intent.getAction())) {
+            return;
+        }
+        int count = Math.max(0, intent.getIntExtra(EXTRA_COUNT, DEFAULT_COUNT));
+        SmsForwardApplication app = SmsForwardApplication.from(context);
+        PendingResult result = goAsync();
+
+        // 提取验证码与服务处理真实短信时走同一路径（也让基线配置文件覆盖提取逻辑）
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(() -> {
+            try {
+                List<SmsMessage> messages = createSampleMessages(count, System.currentTimeMillis());
+                app.getDataManager().saveSmsMessages(messages, () -> {
+                    Log.d(TAG, "Seeded " + messages.size() + " sample SMS messages");
+                    result.finish();
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Error seeding sample SMS messages", e);
+                result.finish();
+            }
+        });
+    }
+
+    /**
+     * Sample messages one minute apart, newest first
+     */
+    private static List<SmsMessage> createSampleMessages(int count, long newestTimestamp) {
+        List<String> contents = SampleSmsMessages.MESSAGES;
+        List<String> senders = SampleSmsMessages.SENDERS;
+        List<SmsMessage> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String content = contents.get(i % contents.size());
+            String sender = senders.get(i % senders.size());
+            List<String> codes = VerificationCodeExtractor.extractVerificationCodes(content, sender);
+            messages.add(new SmsMessage(content, sender, PACKAGE_NAME, newestTimestamp - i * 60_000L,
+                    codes, VerificationCodeExtractor.selectPrimaryCode(codes)));
+        }
+        return messages;
+    }
+}
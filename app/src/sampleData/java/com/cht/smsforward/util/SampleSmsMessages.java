@@ -0,0 +1,53 @@
+package com.cht.smsforward.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sample SMS messages and senders (pure Java)
+ * Shared by TestHelper and the benchmark corpus so both exercise the same formats.
+ */
+public final class SampleSmsMessages {
+
+    /**
+     * Test SMS messages with various verification code formats
+     */
+    public static final List<String> MESSAGES = Collections.unmodifiableList(Arrays.asList(
+        // Numeric verification codes
+        "Your verification code is 123456. Please enter this code to complete your login.",
+        "验证码：789012，请在5分钟内输入。",
+        "Code: 4567 - Use this to verify your account",
+        "[8901] is your verification code for MyApp",
+        
+        // Alphanumeric codes
+        "Your login code is ABC123. Valid for 10 minutes.",
+        "Verification: XY7Z9K - Do not share this code",
+        
+        // Multiple codes
+        "Your codes are 1111 and 2222. Use 1111 for login and 2222 for verification.",
+        
+        // No verification codes
+        "Hello! This is a regular SMS message without any codes.",
+        "Your order #12345 has been shipped and will arrive tomorrow.",
+        
+        // Edge cases
+        "PIN: 0000 (temporary password)",
+        "OTP 999888 expires in 2 minutes",
+        "认证码 567890 请勿泄露"
+    ));
+
+    public static final List<String> SENDERS = Collections.unmodifiableList(Arrays.asList(
+        "Bank of China",
+        "WeChat",
+        "Alipay",
+        "Google",
+        "Microsoft",
+        "Apple ID",
+        "+86 138 0013 8000",
+        "MyApp Service"
+    ));
+
+    private SampleSmsMessages() {
+    }
+}
@@ -1,13 +1,12 @@
 package com.cht.smsforward.util;
 
+import com.cht.smsforward.SmsForwardApplication;
 import com.cht.smsforward.data.SmsMessage;
+import com.cht.smsforward.service.SmsEvent;
 
 import android.content.Context;
-import android.content.Intent;
 import android.util.Log;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -18,55 +17,21 @@ public class TestHelper {
     
     private static final String TAG = "TestHelper";
     
-    /**
-     * Test SMS messages with various verification code formats
-     */
-    private static final String[] TEST_SMS_MESSAGES = {
-        // Numeric verification codes
-        "Your verification code is 123456. Please enter this code to complete your login.",
-        "验证码：789012，请在5分钟内输入。",
-        "Code: 4567 - Use this to verify your account",
-        "[8901] is your verification code for MyApp",
-        
-        // Alphanumeric codes
-        "Your login code is ABC123. Valid for 10 minutes.",
-        "Verification: XY7Z9K - Do not share this code",
-        
-        // Multiple codes
-        "Your codes are 1111 and 2222. Use 1111 for login and 2222 for verification.",
-        
-        // No verification codes
-        "Hello! This is a regular SMS message without any codes.",
-        "Your order #12345 has been shipped and will arrive tomorrow.",
-        
-        // Edge cases
-        "PIN: 0000 (temporary password)",
-        "OTP 999888 expires in 2 minutes",
-        "认证码 567890 请勿泄露"
-    };
-    
-    private static final String[] TEST_SENDERS = {
-        "Bank of China",
-        "WeChat",
-        "Alipay",
-        "Google",
-        "Microsoft",
-        "Apple ID",
-        "+86 138 0013 8000",
-        "MyApp Service"
-    };
+    // 测试短信样本与基准测试共用（见 SampleSmsMessages）
+    private static final List<String> TEST_SMS_MESSAGES = SampleSmsMessages.MESSAGES;
+    private static final List<String> TEST_SENDERS = SampleSmsMessages.SENDERS;
     
     /**
      * Send test SMS data to MainActivity for testing purposes
      */
     public static void sendTestSms(Context context, int messageIndex) {
-        if (messageIndex < 0 || messageIndex >= TEST_SMS_MESSAGES.length) {
+        if (messageIndex < 0 || messageIndex >= TEST_SMS_MESSAGES.size()) {
             Log.e(TAG, "Invalid message index: " + messageIndex);
             return;
         }
 
-        String content = TEST_SMS_MESSAGES[messageIndex];
-        String sender = TEST_SENDERS[messageIndex % TEST_SENDERS.length];
+        String content = TEST_SMS_MESSAGES.get(messageIndex);
+        String sender = TEST_SENDERS.get(messageIndex % TEST_SENDERS.size());
 
         // Extract verification codes using our extractor
         List<String> verificationCodes = VerificationCodeExtractor.extractVerificationCodes(content);
@@ -78,27 +43,18 @@ public class TestHelper {
         Log.e(TAG, "Codes: " + verificationCodes);
         Log.e(TAG, "Primary code: " + primaryCode);
 
-        // Send test SMS via broadcast (simulating real SMS from service)
-        Intent intent = new Intent("com.cht.smsforward.SMS_RECEIVED");
-        intent.putExtra("sms_content", content);
-        intent.putExtra("sender", sender);
-        intent.putExtra("package_name", "com.cht.smsforward.test");
-        intent.putExtra("timestamp", System.currentTimeMillis());
-
-        if (!verificationCodes.isEmpty()) {
-            intent.putStringArrayListExtra("verification_codes", new ArrayList<>(verificationCodes));
-            intent.putExtra("primary_verification_code", primaryCode);
-        }
-
-        context.sendBroadcast(intent);
-        Log.e(TAG, "Test SMS sent via broadcast");
+        // Post test SMS to the event bus (simulating real SMS from service; not stored)
+        SmsMessage smsMessage = new SmsMessage(content, sender, "com.cht.smsforward.test",
+                System.currentTimeMillis(), verificationCodes, primaryCode);
+        SmsForwardApplication.from(context).getEventBus().post(SmsEvent.messageAdded(smsMessage));
+        Log.e(TAG, "Test SMS posted to event bus");
     }
     
     /**
      * Send all test SMS messages
      */
     public static void sendAllTestSms(Context context) {
-        for (int i = 0; i < TEST_SMS_MESSAGES.length; i++) {
+        for (int i = 0; i < TEST_SMS_MESSAGES.size(); i++) {
             sendTestSms(context, i);
             
             // Small delay between messages
@@ -116,8 +72,8 @@ public class TestHelper {
      * Get test message content for preview
      */
     public static String getTestMessage(int index) {
-        if (index >= 0 && index < TEST_SMS_MESSAGES.length) {
-            return TEST_SMS_MESSAGES[index];
+        if (index >= 0 && index < TEST_SMS_MESSAGES.size()) {
+            return TEST_SMS_MESSAGES.get(index);
         }
         return null;
     }
@@ -126,7 +82,7 @@ public class TestHelper {
      * Get total number of test messages
      */
     public static int getTestMessageCount() {
-        return TEST_SMS_MESSAGES.length;
+        return TEST_SMS_MESSAGES.size();
     }
     
     /**
@@ -135,8 +91,8 @@ public class TestHelper {
     public static void testVerificationCodeExtraction() {
         Log.d(TAG, "Testing verification code extraction:");
         
-        for (int i = 0; i < TEST_SMS_MESSAGES.length; i++) {
-            String message = TEST_SMS_MESSAGES[i];
+        for (int i = 0; i < TEST_SMS_MESSAGES.size(); i++) {
+            String message = TEST_SMS_MESSAGES.get(i);
             List<String> codes = VerificationCodeExtractor.extractVerificationCodes(message);
             String primaryCode = VerificationCodeExtractor.getPrimaryVerificationCode(message);
             
@@ -157,7 +113,7 @@ public class TestHelper {
         // This would need to be implemented based on the MainActivity's method
         Log.d(TAG, "Setup validation:");
         Log.d(TAG, "- App package: " + context.getPackageName());
-        Log.d(TAG, "- Test messages available: " + TEST_SMS_MESSAGES.length);
+        Log.d(TAG, "- Test messages available: " + TEST_SMS_MESSAGES.size());
         Log.d(TAG, "- Verification code extractor: OK");
         
         return isValid;
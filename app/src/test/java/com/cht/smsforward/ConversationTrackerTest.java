@@ -0,0 +1,111 @@
+package com.cht.smsforward;
+
+import com.cht.smsforward.service.ConversationTracker;
+import com.cht.smsforward.service.NotificationMessage;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for incremental per-conversation message selection
+ */
+public class ConversationTrackerTest {
+
+    private static final String KEY = "0|com.google.android.apps.messaging|3|null|10086";
+
+    /**
+     * Stored messages as the tracker sees them (the listener passes the message store)
+     */
+    private static class StoredHistory implements ConversationTracker.History {
+        final List<NotificationMessage> stored = new ArrayList<>();
+
+        @Override
+        public long newestTimestamp() {
+            long newest = Long.MIN_VALUE;
+            for (NotificationMessage message : stored) {
+                newest = Math.max(newest, message.getTimestamp());
+            }
+            return newest;
+        }
+
+        @Override
+        public boolean contains(String text, String sender, long timestamp) {
+            for (NotificationMessage message : stored) {
+                if (message.getText().equals(text) && message.getSender().equals(sender) &&
+                        message.getTimestamp() == timestamp) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final StoredHistory history = new StoredHistory();
+
+    @Test
+    public void testRepostReturnsOnlyNewMessages() {
+        ConversationTracker tracker = new ConversationTracker();
+        NotificationMessage first = new NotificationMessage("验证码 111111", "10086", 1000L);
+        NotificationMessage second = new NotificationMessage("验证码 222222", "10086", 2000L);
+
+        assertEquals(Collections.singletonList(first), tracker.selectNew(KEY, Collections.singletonList(first), history));
+        assertEquals(Collections.singletonList(second), tracker.selectNew(KEY, Arrays.asList(first, second), history));
+        assertTrue("Identical re-post has nothing new", tracker.selectNew(KEY, Arrays.asList(first, second), history).isEmpty());
+    }
+
+    @Test
+    public void testFirstSightingSkipsStoredHistory() {
+        ConversationTracker tracker = new ConversationTracker();
+        NotificationMessage first = new NotificationMessage("验证码 111111", "10086", 1000L);
+        NotificationMessage second = new NotificationMessage("验证码 222222", "10086", 2000L);
+        NotificationMessage third = new NotificationMessage("验证码 333333", "10086", 3000L);
+
+        // e.g. the service restarted while the conversation notification already had history
+        history.stored.add(first);
+        history.stored.add(second);
+        assertEquals(Collections.singletonList(third),
+                     tracker.selectNew(KEY, Arrays.asList(first, second, third), history));
+        assertTrue("History is marked as seen",
+                   tracker.selectNew(KEY, Arrays.asList(first, second, third), history).isEmpty());
+    }
+
+    @Test
+    public void testFirstNotificationWithTwoNewCodes() {
+        ConversationTracker tracker = new ConversationTracker();
+        NotificationMessage older = new NotificationMessage("验证码 666666", "95588", 1000L);
+        NotificationMessage first = new NotificationMessage("验证码 777777", "10086", 2000L);
+        NotificationMessage second = new NotificationMessage("验证码 888888", "10086", 2500L);
+
+        // Both codes arrived before the conversation was first posted; an older message from another
+        // conversation is the newest stored one
+        history.stored.add(older);
+        assertEquals(Arrays.asList(first, second), tracker.selectNew(KEY, Arrays.asList(first, second), history));
+    }
+
+    @Test
+    public void testMessagesSharingTimestampAreDistinguished() {
+        ConversationTracker tracker = new ConversationTracker();
+        NotificationMessage a = new NotificationMessage("验证码 333333", "95588", 5000L);
+        NotificationMessage b = new NotificationMessage("验证码 444444", "95588", 5000L);
+
+        assertEquals(Collections.singletonList(a), tracker.selectNew(KEY, Collections.singletonList(a), history));
+        List<NotificationMessage> fresh = tracker.selectNew(KEY, Arrays.asList(a, b), history);
+        assertEquals(Collections.singletonList(b), fresh);
+    }
+
+    @Test
+    public void testConversationsTrackedSeparately() {
+        ConversationTracker tracker = new ConversationTracker(1);
+        NotificationMessage message = new NotificationMessage("验证码 555555", "10010", 1000L);
+
+        assertEquals(1, tracker.selectNew("a", Collections.singletonList(message), history).size());
+        assertEquals(1, tracker.selectNew("b", Collections.singletonList(message), history).size());
+        assertEquals("Evicted conversation starts over", 1,
+                     tracker.selectNew("a", Collections.singletonList(message), history).size());
+        assertEquals(1, tracker.size());
+    }
+}
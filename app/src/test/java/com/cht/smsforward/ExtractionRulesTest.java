@@ -0,0 +1,109 @@
+package com.cht.smsforward;
+
+import com.cht.smsforward.util.ExtractionRules;
+import com.cht.smsforward.util.ExtractionRulesParser;
+import com.cht.smsforward.util.SenderPrefixTrie;
+import com.cht.smsforward.util.VerificationCodeExtractor;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for the versioned extraction rule file, sender-prefix selection and runtime rule swapping
+ */
+public class ExtractionRulesTest {
+
+    private static final String BUNDLED_RULES = "src/main/assets/extraction_rules.json";
+
+    @After
+    public void restoreBuiltInRules() {
+        VerificationCodeExtractor.setRules(ExtractionRules.builtIn());
+    }
+
+    private static ExtractionRules loadBundledRules() throws Exception {
+        try (Reader reader = new InputStreamReader(new FileInputStream(BUNDLED_RULES), StandardCharsets.UTF_8)) {
+            return ExtractionRulesParser.parse(reader);
+        }
+    }
+
+    @Test
+    public void testBundledRulesMatchBuiltInBehaviour() throws Exception {
+        ExtractionRules rules = loadBundledRules();
+        assertEquals(1, rules.getVersion());
+        assertTrue("Bundled rules should define sender profiles", rules.getSenderProfileCount() > 0);
+
+        String[] messages = {
+            "【云测】您的验证码为2354，请于5分钟内正确输入，如非本人操作，请忽略此短信。",
+            "Your verification code is 5678",
+            "Code: ABC123",
+            "【银行】您的账户余额为1234.56元，请及时充值"
+        };
+
+        for (String message : messages) {
+            List<String> builtIn = VerificationCodeExtractor.extractVerificationCodes(message);
+            VerificationCodeExtractor.setRules(rules);
+            List<String> fromFile = VerificationCodeExtractor.extractVerificationCodes(message);
+            VerificationCodeExtractor.setRules(ExtractionRules.builtIn());
+            assertEquals("Default profile should match built-in rules for: " + message, builtIn, fromFile);
+        }
+    }
+
+    @Test
+    public void testSenderPrefixSelectsSenderRules() throws Exception {
+        VerificationCodeExtractor.setRules(loadBundledRules());
+        String smsContent = "【工商银行】您的动态密码为862145，请勿泄露。";
+
+        // Default rules do not know "动态密码"
+        assertTrue(VerificationCodeExtractor.extractVerificationCodes(smsContent, "10690000").isEmpty());
+
+        // The bank service number selects the bank profile
+        assertEquals("862145", VerificationCodeExtractor.getPrimaryVerificationCode(smsContent, "95588"));
+        assertEquals("862145", VerificationCodeExtractor.getPrimaryVerificationCode(smsContent, "955 88"));
+    }
+
+    @Test
+    public void testRulesCanBeSwappedAtRuntime() {
+        String smsContent = "Your verification code is 5678";
+        assertEquals("5678", VerificationCodeExtractor.getPrimaryVerificationCode(smsContent));
+
+        String rulesJson = "{ \"version\": 2, \"defaults\": { \"keywords\": [\"token\"] } }";
+        VerificationCodeExtractor.setRules(ExtractionRulesParser.parse(new StringReader(rulesJson)));
+
+        assertEquals(2, VerificationCodeExtractor.getRules().getVersion());
+        assertNull("Keyword list replaced, message no longer has context",
+                VerificationCodeExtractor.getPrimaryVerificationCode(smsContent));
+        assertEquals("4321", VerificationCodeExtractor.getPrimaryVerificationCode("Your token: 4321"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRuleFileIsRejected() {
+        ExtractionRulesParser.parse(new StringReader(
+                "{ \"version\": 3, \"defaults\": { \"patterns\": [ { \"regex\": \"([0-9]\" } ] } }"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownTierIsRejected() {
+        ExtractionRulesParser.parse(new StringReader(
+                "{ \"version\": 3, \"defaults\": { \"patterns\": [ { \"tier\": \"anchr\", \"regex\": \"(\\\\d{len})\" } ] } }"));
+    }
+
+    @Test
+    public void testSenderPrefixTrieLongestMatch() {
+        SenderPrefixTrie<String> trie = new SenderPrefixTrie<>();
+        trie.put("955", "short");
+        trie.put("95588", "long");
+
+        assertEquals("long", trie.findLongestPrefix("955881234"));
+        assertEquals("short", trie.findLongestPrefix("95533"));
+        assertNull(trie.findLongestPrefix("10086"));
+        assertNull(trie.findLongestPrefix(null));
+        assertEquals(2, trie.size());
+    }
+}
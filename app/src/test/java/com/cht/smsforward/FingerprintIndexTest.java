@@ -0,0 +1,71 @@
+package com.cht.smsforward;
+
+import com.cht.smsforward.data.FingerprintIndex;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for the open-addressing fingerprint index
+ */
+public class FingerprintIndexTest {
+
+    @Test
+    public void testPutGetRemove() {
+        FingerprintIndex index = new FingerprintIndex();
+        assertEquals(FingerprintIndex.NO_VALUE, index.get(42L));
+
+        index.put(42L, 1000L);
+        index.put(0L, 2000L); // 0 is the empty-slot marker internally
+        assertEquals(1000L, index.get(42L));
+        assertEquals(2000L, index.get(0L));
+        assertEquals(2, index.size());
+
+        index.put(42L, 3000L);
+        assertEquals(3000L, index.get(42L));
+        assertEquals(2, index.size());
+
+        assertTrue(index.remove(42L));
+        assertFalse(index.remove(42L));
+        assertFalse(index.contains(42L));
+        assertEquals(1, index.size());
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertFalse(index.contains(0L));
+    }
+
+    @Test
+    public void testMatchesHashMapUnderRandomOperations() {
+        Random random = new Random(7);
+        FingerprintIndex index = new FingerprintIndex(4);
+        Map<Long, Long> expected = new HashMap<>();
+        List<Long> keys = new ArrayList<>();
+
+        for (int i = 0; i < 20000; i++) {
+            int op = random.nextInt(3);
+            if (op < 2 || keys.isEmpty()) {
+                // 低位相同的键集中在同一探测链上，覆盖后移删除的各种情况
+                long key = ((long) random.nextInt(64) << 32) | (random.nextInt(8) + 2);
+                long value = random.nextInt(1_000_000);
+                index.put(key, value);
+                if (expected.put(key, value) == null) {
+                    keys.add(key);
+                }
+            } else {
+                Long key = keys.remove(random.nextInt(keys.size()));
+                assertTrue(index.remove(key));
+                expected.remove(key);
+            }
+            assertEquals(expected.size(), index.size());
+        }
+        for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getValue().longValue(), index.get(entry.getKey()));
+        }
+    }
+}
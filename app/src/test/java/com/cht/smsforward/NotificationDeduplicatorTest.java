@@ -0,0 +1,54 @@
+package com.cht.smsforward;
+
+import com.cht.smsforward.service.NotificationDeduplicator;
+import com.cht.smsforward.util.ContentFingerprint;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for NotificationDeduplicator and ContentFingerprint
+ */
+public class NotificationDeduplicatorTest {
+
+    @Test
+    public void testRepostWithSameContentIsDuplicate() {
+        NotificationDeduplicator deduplicator = new NotificationDeduplicator();
+        long fingerprint = ContentFingerprint.of("您的验证码是123456", "10690000");
+
+        assertFalse(deduplicator.isDuplicate("0|com.android.mms|1|null|0", fingerprint));
+        assertTrue(deduplicator.isDuplicate("0|com.android.mms|1|null|0", fingerprint));
+        assertFalse("Other notification key", deduplicator.isDuplicate("0|com.android.mms|2|null|0", fingerprint));
+        assertEquals(1, deduplicator.getDuplicateCount());
+    }
+
+    @Test
+    public void testUpdatedContentIsProcessed() {
+        NotificationDeduplicator deduplicator = new NotificationDeduplicator();
+        String key = "0|com.google.android.apps.messaging|7|null|0";
+
+        assertFalse(deduplicator.isDuplicate(key, ContentFingerprint.of("验证码 111111", "95588")));
+        assertFalse(deduplicator.isDuplicate(key, ContentFingerprint.of("验证码 222222", "95588")));
+        assertTrue(deduplicator.isDuplicate(key, ContentFingerprint.of("验证码 222222", "95588")));
+    }
+
+    @Test
+    public void testCapacityEvictsLeastRecentlyUsed() {
+        NotificationDeduplicator deduplicator = new NotificationDeduplicator(2);
+        deduplicator.isDuplicate("a", 1);
+        deduplicator.isDuplicate("b", 2);
+        deduplicator.isDuplicate("a", 1); // touch a
+        deduplicator.isDuplicate("c", 3); // evicts b
+
+        assertEquals(2, deduplicator.size());
+        assertTrue(deduplicator.isDuplicate("a", 1));
+        assertFalse("Evicted key is processed again", deduplicator.isDuplicate("b", 2));
+    }
+
+    @Test
+    public void testFingerprintSeparatesParts() {
+        assertNotEquals(ContentFingerprint.of("ab", "c"), ContentFingerprint.of("a", "bc"));
+        assertNotEquals(ContentFingerprint.of(null, "x"), ContentFingerprint.of("", "x"));
+        assertEquals(ContentFingerprint.of("验证码123456", "10086"), ContentFingerprint.of("验证码123456", "10086"));
+    }
+}
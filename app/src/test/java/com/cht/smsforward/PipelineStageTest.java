@@ -0,0 +1,88 @@
+package com.cht.smsforward;
+
+import com.cht.smsforward.service.PipelineStage;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for PipelineStage ordering, back-pressure, error handling and counters
+ */
+public class PipelineStageTest {
+
+    @Test
+    public void testItemsProcessedInOrderAndDrainedOnStop() throws Exception {
+        List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+        PipelineStage<Integer> stage = new PipelineStage<>("order", 16, processed::add, null);
+        stage.start();
+        for (int i = 0; i < 10; i++) {
+            assertTrue(stage.offer(i));
+        }
+        stage.stop();
+        assertTrue(stage.awaitTermination(5000));
+
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            expected.add(i);
+        }
+        assertEquals(expected, processed);
+        assertEquals(10, stage.getSubmittedCount());
+        assertEquals(10, stage.getCompletedCount());
+        assertFalse("Stopped stage should reject new items", stage.offer(99));
+        assertEquals(1, stage.getRejectedCount());
+    }
+
+    @Test
+    public void testFullQueueRejectsWithoutBlocking() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        PipelineStage<String> stage = new PipelineStage<>("bounded", 2, item -> {
+            started.countDown();
+            release.await();
+        }, null);
+        stage.start();
+
+        assertTrue(stage.offer("in-flight"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(stage.offer("a"));
+        assertTrue(stage.offer("b"));
+        assertFalse(stage.offer("c"));
+        assertEquals(1, stage.getRejectedCount());
+        assertEquals(2, stage.getQueueSize());
+
+        release.countDown();
+        stage.stop();
+        assertTrue(stage.awaitTermination(5000));
+        assertEquals(3, stage.getCompletedCount());
+    }
+
+    @Test
+    public void testHandlerFailureDoesNotStopWorker() throws Exception {
+        List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        List<String> processed = Collections.synchronizedList(new ArrayList<>());
+        PipelineStage<String> stage = new PipelineStage<>("errors", 8, item -> {
+            if (item.startsWith("bad")) {
+                throw new IllegalStateException(item);
+            }
+            processed.add(item);
+        }, (item, e) -> errors.add(item + ":" + e.getMessage()));
+        stage.start();
+        stage.offer("bad-1");
+        stage.offer("good");
+        stage.stop();
+        assertTrue(stage.awaitTermination(5000));
+
+        assertEquals(Collections.singletonList("bad-1:bad-1"), errors);
+        assertEquals(Collections.singletonList("good"), processed);
+        assertEquals(1, stage.getFailedCount());
+        assertEquals(2, stage.getCompletedCount());
+        assertTrue(stage.getMaxLatencyMicros() >= stage.getAverageLatencyMicros());
+        assertTrue(stage.getAverageLatencyMicros() >= stage.getAverageServiceMicros());
+        assertTrue(stage.getThroughputPerSecond() > 0);
+    }
+}
@@ -0,0 +1,77 @@
+package com.cht.smsforward;
+
+import com.cht.smsforward.data.SmsMessage;
+import com.cht.smsforward.model.ForwardStatus;
+import com.cht.smsforward.service.SmsEvent;
+import com.cht.smsforward.service.SmsEventBatch;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for SmsEventBatch coalescing
+ */
+public class SmsEventBatchTest {
+
+    private static SmsMessage message(long timestamp) {
+        return new SmsMessage("验证码" + timestamp, "95588", "com.android.mms", timestamp,
+                Arrays.asList(String.valueOf(timestamp)), String.valueOf(timestamp));
+    }
+
+    /**
+     * SENDING and SUCCESS/FAILED for both channels, as the listener posts them (each a new version)
+     * @return the last version
+     */
+    private static SmsMessage forward(List<SmsEvent> events, SmsMessage sms, boolean serverChanFails) {
+        sms = sms.withEmailStatus(ForwardStatus.SENDING, null);
+        events.add(SmsEvent.statusChanged(sms));
+        sms = sms.withServerChanStatus(ForwardStatus.SENDING, null);
+        events.add(SmsEvent.statusChanged(sms));
+        sms = sms.withEmailStatus(ForwardStatus.SUCCESS, null);
+        events.add(SmsEvent.statusChanged(sms));
+        if (serverChanFails) {
+            sms = sms.withServerChanStatus(ForwardStatus.FAILED, "timeout");
+        } else {
+            sms = sms.withServerChanStatus(ForwardStatus.SUCCESS, null);
+        }
+        events.add(SmsEvent.statusChanged(sms));
+        return sms;
+    }
+
+    @Test
+    public void testBurstOfOtpsCoalescesToOneEntryPerMessage() {
+        List<SmsEvent> events = new ArrayList<>();
+        List<SmsMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            SmsMessage sms = message(1000L + i);
+            events.add(SmsEvent.messageAdded(sms));
+            messages.add(forward(events, sms, false));
+        }
+
+        SmsEventBatch batch = SmsEventBatch.of(events);
+        assertEquals(50, batch.getEventCount());
+        assertEquals("Added messages are bound with their latest version", messages, batch.getAddedMessages());
+        assertEquals(ForwardStatus.SUCCESS, batch.getAddedMessages().get(0).getForwardStatus());
+        assertTrue(batch.getChangedMessages().isEmpty());
+        assertNull(batch.getLastError());
+    }
+
+    @Test
+    public void testStatusChangesOfEarlierMessagesAreDeduplicated() {
+        SmsMessage first = message(1000L);
+        SmsMessage second = message(2000L);
+        List<SmsEvent> events = new ArrayList<>();
+        SmsMessage firstForwarded = forward(events, first, false);
+        SmsMessage secondForwarded = forward(events, second, true);
+
+        SmsEventBatch batch = SmsEventBatch.of(events);
+        assertTrue(batch.getAddedMessages().isEmpty());
+        assertEquals(Arrays.asList(firstForwarded, secondForwarded), batch.getChangedMessages());
+        assertEquals("Original instance is not modified", ForwardStatus.NOT_SENT, first.getForwardStatus());
+        assertEquals("Server酱: timeout", batch.getLastError());
+    }
+}
@@ -0,0 +1,105 @@
+package com.cht.smsforward;
+
+import com.cht.smsforward.data.SmsMessage;
+import com.cht.smsforward.model.ForwardStatus;
+import com.cht.smsforward.service.SmsEvent;
+import com.cht.smsforward.service.SmsEventBus;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for SmsEventBus frame-coalesced delivery
+ */
+public class SmsEventBusTest {
+
+    /**
+     * Collects scheduled frames so the test decides when a frame runs
+     */
+    private static class ManualFrames implements SmsEventBus.FrameScheduler {
+        final List<Runnable> frames = new ArrayList<>();
+
+        @Override
+        public void scheduleFrame(Runnable frame) {
+            frames.add(frame);
+        }
+
+        void runFrame() {
+            List<Runnable> current = new ArrayList<>(frames);
+            frames.clear();
+            for (Runnable frame : current) {
+                frame.run();
+            }
+        }
+    }
+
+    private static SmsMessage message(long timestamp) {
+        return new SmsMessage("您的验证码是123456", "95588", "com.android.mms", timestamp,
+                Arrays.asList("123456"), "123456");
+    }
+
+    @Test
+    public void testEventsInOneFrameAreDeliveredAsOneBatch() {
+        ManualFrames frames = new ManualFrames();
+        SmsEventBus bus = new SmsEventBus(frames);
+        List<List<SmsEvent>> batches = new ArrayList<>();
+        bus.subscribe(batches::add);
+
+        SmsMessage sms = message(1000L);
+        bus.post(SmsEvent.messageAdded(sms));
+        SmsMessage sending = sms.withEmailStatus(ForwardStatus.SENDING, null);
+        bus.post(SmsEvent.statusChanged(sending));
+        SmsMessage sent = sending.withEmailStatus(ForwardStatus.SUCCESS, null);
+        bus.post(SmsEvent.statusChanged(sent));
+
+        assertEquals("Only one frame scheduled", 1, frames.frames.size());
+        assertTrue("Nothing delivered before the frame", batches.isEmpty());
+
+        frames.runFrame();
+        assertEquals(1, batches.size());
+        List<SmsEvent> batch = batches.get(0);
+        assertEquals(3, batch.size());
+        assertEquals(SmsEvent.Type.MESSAGE_ADDED, batch.get(0).getType());
+        assertEquals("Status captured when posted", ForwardStatus.SENDING, batch.get(1).getForwardStatus());
+        assertEquals(ForwardStatus.SUCCESS, batch.get(2).getForwardStatus());
+        assertSame(sent, batch.get(2).getMessage());
+        assertEquals(3, bus.getPostedCount());
+        assertEquals(1, bus.getFrameCount());
+    }
+
+    @Test
+    public void testPostAfterDeliverySchedulesNextFrame() {
+        ManualFrames frames = new ManualFrames();
+        SmsEventBus bus = new SmsEventBus(frames);
+        List<List<SmsEvent>> batches = new ArrayList<>();
+        bus.subscribe(batches::add);
+
+        bus.post(SmsEvent.messageAdded(message(1000L)));
+        frames.runFrame();
+        bus.post(SmsEvent.messageAdded(message(2000L)));
+        assertEquals(1, frames.frames.size());
+        frames.runFrame();
+
+        assertEquals(2, batches.size());
+        assertEquals(2000L, batches.get(1).get(0).getMessage().getTimestamp());
+    }
+
+    @Test
+    public void testUnsubscribedReceivesNothing() {
+        ManualFrames frames = new ManualFrames();
+        SmsEventBus bus = new SmsEventBus(frames);
+        List<List<SmsEvent>> batches = new ArrayList<>();
+        SmsEventBus.Subscriber subscriber = batches::add;
+        bus.subscribe(subscriber);
+        bus.unsubscribe(subscriber);
+
+        bus.post(SmsEvent.messageAdded(message(1000L)));
+        frames.runFrame();
+
+        assertTrue(batches.isEmpty());
+    }
+}
@@ -0,0 +1,64 @@
+package com.cht.smsforward;
+
+import com.cht.smsforward.data.SmsMessage;
+import com.cht.smsforward.data.SmsMessageOrder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for binary search over newest-first message lists
+ */
+public class SmsMessageOrderTest {
+
+    private static SmsMessage message(String content, String sender, long timestamp) {
+        return new SmsMessage(content, sender, "com.android.mms", timestamp, Collections.emptyList(), null);
+    }
+
+    @Test
+    public void testInsertionIndexMatchesLinearScan() {
+        List<SmsMessage> messages = new ArrayList<>(Arrays.asList(
+                message("e", "1", 5_000), message("c1", "1", 3_000), message("c2", "2", 3_000), message("a", "1", 1_000)));
+
+        assertEquals(0, SmsMessageOrder.insertionIndex(messages, 6_000));
+        assertEquals("Equal timestamps go after existing ones", 3, SmsMessageOrder.insertionIndex(messages, 3_000));
+        assertEquals(3, SmsMessageOrder.insertionIndex(messages, 2_000));
+        assertEquals(4, SmsMessageOrder.insertionIndex(messages, 500));
+        assertEquals(0, SmsMessageOrder.insertionIndex(new ArrayList<>(), 1_000));
+    }
+
+    @Test
+    public void testIndexOfSearchesWithinEqualTimestamps() {
+        List<SmsMessage> messages = Arrays.asList(
+                message("e", "1", 5_000), message("c1", "1", 3_000), message("c2", "2", 3_000), message("a", "1", 1_000));
+
+        assertEquals(2, SmsMessageOrder.indexOf(messages, 3_000, "2", "c2"));
+        assertEquals(1, SmsMessageOrder.indexOf(messages, 3_000, "1", null));
+        assertEquals(-1, SmsMessageOrder.indexOf(messages, 3_000, "2", "other"));
+        assertEquals(-1, SmsMessageOrder.indexOf(messages, 4_000, "1", null));
+        assertEquals(3, SmsMessageOrder.indexOf(messages, 1_000, "1", "a"));
+    }
+
+    @Test
+    public void testSameTimestampAndSenderAreToldApartByContent() {
+        // Two SMS from one sender posted with the same timestamp (how SmsAdapter looks up rows)
+        SmsMessage first = message("验证码 111111", "95588", 3_000);
+        SmsMessage second = message("验证码 222222", "95588", 3_000);
+        List<SmsMessage> messages = new ArrayList<>(Arrays.asList(message("e", "1", 5_000), first, second));
+
+        assertEquals(1, SmsMessageOrder.indexOf(messages, 3_000, second.getSender(), first.getContent()));
+        assertEquals(2, SmsMessageOrder.indexOf(messages, 3_000, second.getSender(), second.getContent()));
+        assertEquals("A third body is a new row, not a replacement", -1,
+                     SmsMessageOrder.indexOf(messages, 3_000, "95588", "验证码 333333"));
+    }
+
+    @Test
+    public void testIsNewestFirst() {
+        assertTrue(SmsMessageOrder.isNewestFirst(Arrays.asList(message("b", "1", 2_000), message("a", "1", 2_000))));
+        assertFalse(SmsMessageOrder.isNewestFirst(Arrays.asList(message("a", "1", 1_000), message("b", "1", 2_000))));
+    }
+}
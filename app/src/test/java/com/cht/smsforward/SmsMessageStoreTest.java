@@ -0,0 +1,210 @@
+package com.cht.smsforward;
+
+import com.cht.smsforward.data.SmsMessage;
+import com.cht.smsforward.data.SmsMessageStore;
+import com.cht.smsforward.data.SmsStorageEngine;
+import com.cht.smsforward.model.ForwardStatus;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for SmsMessageStore ordering, duplicate detection, capacity and status updates
+ */
+public class SmsMessageStoreTest {
+
+    /**
+     * In-memory engine that records what was persisted
+     */
+    private static class MemoryEngine implements SmsStorageEngine {
+        List<SmsMessage> saved = new ArrayList<>();
+        int saveCount;
+        int loadCount;
+        int generationReads;
+        long generation;
+        boolean failNextSave;
+
+        @Override
+        public String getName() {
+            return "memory";
+        }
+
+        @Override
+        public List<SmsMessage> load() {
+            loadCount++;
+            return new ArrayList<>(saved);
+        }
+
+        @Override
+        public void save(List<SmsMessage> messages) {
+            if (failNextSave) {
+                failNextSave = false;
+                throw new IllegalStateException("disk full");
+            }
+            saved = new ArrayList<>(messages);
+            saveCount++;
+            generation++;
+        }
+
+        @Override
+        public void clear() {
+            saved = new ArrayList<>();
+            generation++;
+        }
+
+        @Override
+        public long getGeneration() {
+            generationReads++;
+            return generation;
+        }
+    }
+
+    private static SmsMessage message(String content, long timestamp) {
+        return new SmsMessage(content, "95588", "com.android.mms", timestamp,
+                Arrays.asList("123456"), "123456");
+    }
+
+    @Test
+    public void testMessagesAreKeptNewestFirstAndTrimmedToCapacity() {
+        MemoryEngine engine = new MemoryEngine();
+        SmsMessageStore store = new SmsMessageStore(engine, 3);
+
+        assertTrue(store.add(message("a", 2_000)));
+        assertTrue(store.add(message("b", 5_000)));
+        assertTrue(store.add(message("c", 1_000)));
+        assertTrue(store.add(message("d", 4_000)));
+
+        List<SmsMessage> messages = store.getMessages();
+        assertEquals(3, messages.size());
+        assertEquals("b", messages.get(0).getContent());
+        assertEquals("d", messages.get(1).getContent());
+        assertEquals("a", messages.get(2).getContent());
+        assertEquals(3, engine.saved.size());
+    }
+
+    @Test
+    public void testDuplicateWithinOneSecondIsSkipped() {
+        MemoryEngine engine = new MemoryEngine();
+        SmsMessageStore store = new SmsMessageStore(engine, 10);
+
+        assertTrue(store.add(message("验证码123456", 10_000)));
+        assertFalse(store.add(message("验证码123456", 10_400)));
+        assertTrue(store.add(message("验证码123456", 12_000)));
+        assertEquals(2, store.getMessages().size());
+        assertEquals(2, engine.saveCount);
+    }
+
+    @Test
+    public void testContainsUsesDuplicateRule() {
+        SmsMessageStore store = new SmsMessageStore(new MemoryEngine(), 10);
+        assertEquals(Long.MIN_VALUE, store.getNewestTimestamp());
+        store.add(message("验证码123456", 10_000));
+        store.add(message("验证码654321", 20_000));
+
+        assertEquals(20_000, store.getNewestTimestamp());
+        assertTrue(store.contains("验证码123456", "95588", 10_000));
+        assertFalse(store.contains("验证码123456", "95588", 20_000));
+        assertFalse(store.contains("验证码123456", "10086", 10_000));
+    }
+
+    @Test
+    public void testStatusUpdateIsPersistedAndSurvivesReload() {
+        MemoryEngine engine = new MemoryEngine();
+        SmsMessageStore store = new SmsMessageStore(engine, 10);
+        SmsMessage sms = message("验证码123456", 10_000);
+        store.add(sms);
+
+        SmsMessage sent = sms.withEmailStatus(ForwardStatus.SUCCESS, null);
+        assertTrue(store.update(sent));
+        assertSame("Update stores the new version", sent, store.getMessages().get(0));
+        assertEquals("Stored instance is not modified", ForwardStatus.NOT_SENT, sms.getForwardStatus());
+        assertFalse(store.update(message("unknown", 1)));
+
+        SmsMessageStore reopened = new SmsMessageStore(engine, 10);
+        assertEquals(ForwardStatus.SUCCESS, reopened.getMessages().get(0).getForwardStatus());
+    }
+
+    @Test
+    public void testReloadOnlyWhenStorageChangedExternally() {
+        MemoryEngine engine = new MemoryEngine();
+        SmsMessageStore listenerStore = new SmsMessageStore(engine, 10);
+        SmsMessageStore uiStore = new SmsMessageStore(engine, 10);
+
+        assertEquals(0, uiStore.preload());
+        assertTrue(uiStore.add(message("own write", 1_000)));
+        int loads = engine.loadCount;
+        assertEquals(1, uiStore.reload());
+        assertEquals("Own writes must not trigger a reload", loads, engine.loadCount);
+
+        assertTrue(listenerStore.add(message("external write", 2_000)));
+        int generationReads = engine.generationReads;
+        assertEquals("Reads do not check storage", 1, uiStore.getMessages().size());
+        assertEquals(generationReads, engine.generationReads);
+
+        assertEquals(2, uiStore.reload());
+        List<SmsMessage> messages = uiStore.getMessages();
+        assertEquals(2, messages.size());
+        assertEquals("external write", messages.get(0).getContent());
+        assertFalse("Index rebuilt after external write", uiStore.add(message("external write", 2_000)));
+    }
+
+    @Test
+    public void testEvictedMessagesLeaveDuplicateIndex() {
+        MemoryEngine engine = new MemoryEngine();
+        SmsMessageStore store = new SmsMessageStore(engine, 2);
+
+        assertTrue(store.add(message("a", 1_000)));
+        assertTrue(store.add(message("b", 2_000)));
+        assertTrue(store.add(message("c", 3_000))); // evicts a
+        assertFalse(store.add(message("b", 2_000)));
+        assertTrue("Evicted message is no longer a duplicate", store.add(message("a", 1_000)));
+
+        List<SmsMessage> messages = store.getMessages();
+        assertEquals(2, messages.size());
+        assertEquals("c", messages.get(0).getContent());
+        assertEquals("b", messages.get(1).getContent());
+    }
+
+    @Test
+    public void testFailedSaveDoesNotMarkMessageAsDuplicate() {
+        MemoryEngine engine = new MemoryEngine();
+        SmsMessageStore store = new SmsMessageStore(engine, 10);
+        assertTrue(store.add(message("a", 1_000)));
+
+        engine.failNextSave = true;
+        try {
+            store.add(message("b", 2_000));
+            fail("Save failure must propagate");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        assertEquals(1, store.getMessages().size());
+
+        assertTrue("Retry after a failed save is not a duplicate", store.add(message("b", 2_000)));
+        assertEquals(2, store.getMessages().size());
+        assertEquals(2, engine.saved.size());
+    }
+
+    @Test
+    public void testReadsAreStableReadOnlySnapshots() {
+        MemoryEngine engine = new MemoryEngine();
+        SmsMessageStore store = new SmsMessageStore(engine, 10);
+        assertTrue(store.add(message("a", 1_000)));
+
+        List<SmsMessage> before = store.getMessages();
+        assertSame("Unchanged store returns the same snapshot", before, store.getMessages());
+        try {
+            before.add(message("x", 9_000));
+            fail("Snapshot must be read-only");
+        } catch (UnsupportedOperationException expected) {
+            // expected
+        }
+
+        assertTrue(store.add(message("b", 2_000)));
+        assertEquals("Earlier snapshot is not affected by later writes", 1, before.size());
+        assertEquals(2, store.getMessages().size());
+    }
+}
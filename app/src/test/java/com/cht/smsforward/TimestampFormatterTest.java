@@ -0,0 +1,87 @@
+package com.cht.smsforward;
+
+import com.cht.smsforward.data.SmsMessage;
+import com.cht.smsforward.util.TimestampFormatter;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test class for TimestampFormatter and the cached SmsMessage timestamps
+ */
+public class TimestampFormatterTest {
+
+    private static String expected(String pattern, long millis) {
+        return new SimpleDateFormat(pattern, Locale.getDefault()).format(new Date(millis));
+    }
+
+    @Test
+    public void testMatchesSimpleDateFormat() {
+        long millis = 1_700_000_123_456L;
+        assertEquals(expected("HH:mm:ss", millis), TimestampFormatter.formatTime(millis));
+        assertEquals(expected("yyyy-MM-dd HH:mm:ss", millis), TimestampFormatter.formatDateTime(millis));
+    }
+
+    @Test
+    public void testConcurrentFormattingIsConsistent() throws InterruptedException {
+        AtomicInteger mismatches = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long base = 1_600_000_000_000L + t * 86_400_000L * 31;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    long millis = base + i * 3_600_123L;
+                    if (!expected("yyyy-MM-dd HH:mm:ss", millis).equals(TimestampFormatter.formatDateTime(millis))) {
+                        mismatches.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, mismatches.get());
+    }
+
+    @Test
+    public void testSmsMessageCachesFormattedTimestamp() {
+        long millis = 1_700_000_123_456L;
+        SmsMessage sms = new SmsMessage("您的验证码是123456", "95588", "com.android.mms", millis, null, null);
+
+        String first = sms.getFormattedTimestamp();
+        assertEquals(expected("HH:mm:ss", millis), first);
+        assertSame(first, sms.getFormattedTimestamp());
+        assertEquals(expected("yyyy-MM-dd HH:mm:ss", millis), sms.getFormattedDate());
+    }
+
+    @Test
+    public void testInvalidateAfterTimeZoneChange() {
+        TimeZone original = TimeZone.getDefault();
+        try {
+            long millis = 1_700_000_123_456L; // 2023-11-14 22:15:23 UTC
+            TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+            TimestampFormatter.invalidate();
+            SmsMessage sms = new SmsMessage("您的验证码是123456", "95588", "com.android.mms", millis, null, null);
+            assertEquals("22:15:23", sms.getFormattedTimestamp());
+            assertEquals("2023-11-14 22:15:23", TimestampFormatter.formatDateTime(millis));
+
+            TimeZone.setDefault(TimeZone.getTimeZone("Asia/Shanghai"));
+            TimestampFormatter.invalidate();
+            assertEquals("06:15:23", sms.getFormattedTimestamp());
+            assertEquals("2023-11-15 06:15:23", sms.getFormattedDate());
+        } finally {
+            TimeZone.setDefault(original);
+            TimestampFormatter.invalidate();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.cht.smsforward;
 
+import com.cht.smsforward.util.SenderTemplateCache;
 import com.cht.smsforward.util.VerificationCodeExtractor;
 import org.junit.Test;
 import java.util.List;
@@ -102,4 +103,58 @@ public class VerificationCodeExtractorTest {
             System.out.println("Edge case test - Found codes: " + codes);
         }
     }
+
+    @Test
+    public void testSenderTemplateIsLearnedAndReused() {
+        SenderTemplateCache cache = VerificationCodeExtractor.getTemplateCache();
+        cache.clear();
+        String sender = "1069012345";
+
+        String first = "【云测】您的验证码为2354，请于5分钟内正确输入，如非本人操作，请忽略此短信。";
+        String second = "【云测】您的验证码为8817，请于5分钟内正确输入，如非本人操作，请忽略此短信。";
+
+        assertEquals("2354", VerificationCodeExtractor.getPrimaryVerificationCode(first, sender));
+        long hitsBefore = cache.getHitCount();
+
+        // Same template with a new code is answered from the template cache
+        assertEquals("8817", VerificationCodeExtractor.getPrimaryVerificationCode(second, sender));
+        assertEquals(hitsBefore + 1, cache.getHitCount());
+
+        // A different layout from the same sender misses and falls back to the general path
+        long missesBefore = cache.getMissCount();
+        assertEquals("5566", VerificationCodeExtractor.getPrimaryVerificationCode("Your verification code is 5566", sender));
+        assertEquals(missesBefore + 1, cache.getMissCount());
+
+        // A longer code at the template position is not truncated to the learned length
+        VerificationCodeExtractor.getPrimaryVerificationCode(first, sender);
+        assertEquals("23541", VerificationCodeExtractor.getPrimaryVerificationCode(
+                "【云测】您的验证码为23541，请于5分钟内正确输入，如非本人操作，请忽略此短信。", sender));
+    }
+
+    @Test
+    public void testSenderTemplateRequiresKeyword() {
+        VerificationCodeExtractor.getTemplateCache().clear();
+        String sender = "1069054321";
+
+        // The learned prefix ("发送，本次登录动态口令：") does not contain the keyword itself
+        assertEquals("482135", VerificationCodeExtractor.getPrimaryVerificationCode(
+                "【商城】您的验证码已发送，本次登录动态口令：482135，请勿泄露。", sender));
+
+        // Same layout without any verification keyword is not answered from the template
+        assertTrue(VerificationCodeExtractor.extractVerificationCodes(
+                "【商城】订单已发送，本次登录动态口令：730051，请勿泄露。", sender).isEmpty());
+    }
+
+    @Test
+    public void testCodeAfterFirst500CharactersIsFound() {
+        // Long concatenated/marketing SMS used to be truncated to 500 characters before extraction
+        StringBuilder smsContent = new StringBuilder("【商城】双十一狂欢开启，");
+        while (smsContent.length() < 1200) {
+            smsContent.append("全场满300减50，点击链接领取优惠券，");
+        }
+        smsContent.append("您的验证码为731942，5分钟内有效。");
+
+        List<String> codes = VerificationCodeExtractor.extractVerificationCodes(smsContent.toString());
+        assertEquals("731942", VerificationCodeExtractor.selectPrimaryCode(codes));
+    }
 }
@@ -0,0 +1,112 @@
+package com.cht.smsforward.benchmark;
+
+import com.cht.smsforward.util.ExtractionRules;
+import com.cht.smsforward.util.ExtractionRulesParser;
+import com.cht.smsforward.util.SampleSmsMessages;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Realistic SMS corpus used by the benchmarks
+ * Each corpus is a list of (sender, content) pairs; benchmarks cycle through it so branch
+ * prediction and the template cache see the same mix as a real notification stream.
+ */
+final class BenchmarkCorpus {
+
+    static final String SAMPLE = "sample";
+    static final String BANK = "bank";
+    static final String MARKETING = "marketing";
+    static final String LONG = "long";
+
+    private static final String RULES_RESOURCE = "/extraction_rules.json";
+
+    private static final String[][] BANK_MESSAGES = {
+        {"95588", "【工商银行】您的动态密码为862145，您正在进行网上支付，金额1,280.00元，请勿泄露。"},
+        {"95533", "【建设银行】验证码：473920，您正在登录手机银行，5分钟内有效。如非本人操作请致电95533。"},
+        {"95599", "【农业银行】您尾号6688的账户正在进行转账，校验码为305816，请在页面中输入，切勿告知他人。"},
+        {"95566", "【中国银行】您的交易码为77410263，用于跨行转账确认，有效期10分钟。"},
+        {"95555", "【招商银行】验证码为948271，您正在绑定新设备，若非本人操作请立即冻结账户。"},
+        {"95559", "【交通银行】您本次操作的动态码：615032，请勿向任何人泄露。"},
+        {"95588", "【工商银行】您的动态密码为129384，您正在进行网上支付，金额36.50元，请勿泄露。"},
+        {"95533", "【建设银行】验证码：580114，您正在登录手机银行，5分钟内有效。如非本人操作请致电95533。"}
+    };
+
+    private static final String[][] MARKETING_MESSAGES = {
+        {"1069012345", "【京东】双11狂欢开启！满299减50，爆款低至5折，戳 https://3.cn/abc123 立即抢购，回T退订"},
+        {"1069054321", "【美团】您有3张优惠券即将过期，最高可减20元，点击 dpurl.cn/x9k2 查看，退订回TD"},
+        {"10086", "尊敬的客户，您本月套餐剩余通用流量2.35GB，语音186分钟。办理5G升级包请回复KT5G。【中国移动】"},
+        {"95588", "【工商银行】您尾号1234卡10月19日14:32支出(消费)128.00元，余额4,561.20元。"},
+        {"1069099999", "【顺丰速运】您的快件SF1403285562813已到达丰巢柜，取件码20781234，请于24小时内取件。"},
+        {"1069088888", "Hello! This is a regular SMS message without any codes."}
+    };
+
+    // 长短信：验证码位于大段说明文字之后
+    private static final String LONG_FILLER =
+        "尊敬的客户，为保障您的账户与资金安全，请勿向任何人（包括自称银行、公安、客服的人员）透露短信内容，"
+        + "本行工作人员不会以任何理由向您索要密码或动态信息。如您近期收到可疑来电或链接，请立即挂断并通过官方渠道核实。"
+        + "Dear customer, to protect your account please never share this message with anyone, including bank staff. ";
+
+    private BenchmarkCorpus() {
+    }
+
+    static List<String[]> load(String name) {
+        List<String[]> corpus = new ArrayList<>();
+        switch (name) {
+            case SAMPLE:
+                List<String> messages = SampleSmsMessages.MESSAGES;
+                List<String> senders = SampleSmsMessages.SENDERS;
+                for (int i = 0; i < messages.size(); i++) {
+                    corpus.add(new String[] {senders.get(i % senders.size()), messages.get(i)});
+                }
+                break;
+            case BANK:
+                for (String[] message : BANK_MESSAGES) {
+                    corpus.add(message);
+                }
+                break;
+            case MARKETING:
+                for (String[] message : MARKETING_MESSAGES) {
+                    corpus.add(message);
+                }
+                break;
+            case LONG:
+                corpus.add(new String[] {"95588", repeat(LONG_FILLER, 4) + "【工商银行】您的动态密码为862145，请勿泄露。"});
+                corpus.add(new String[] {"95533", repeat(LONG_FILLER, 8) + "验证码：473920，5分钟内有效。"});
+                corpus.add(new String[] {"1069012345", repeat(LONG_FILLER, 6) + "回T退订"});
+                corpus.add(new String[] {"Google", "Your verification code is 5678. " + repeat(LONG_FILLER, 6)});
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown corpus: " + name);
+        }
+        return corpus;
+    }
+
+    /**
+     * Load the rule file shipped with the app (same file the service uses)
+     */
+    static ExtractionRules loadBundledRules() {
+        InputStream input = BenchmarkCorpus.class.getResourceAsStream(RULES_RESOURCE);
+        if (input == null) {
+            throw new IllegalStateException("Missing " + RULES_RESOURCE + " on the benchmark classpath");
+        }
+        try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+            return ExtractionRulesParser.parse(reader);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read " + RULES_RESOURCE, e);
+        }
+    }
+
+    private static String repeat(String text, int times) {
+        StringBuilder builder = new StringBuilder(text.length() * times);
+        for (int i = 0; i < times; i++) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+}
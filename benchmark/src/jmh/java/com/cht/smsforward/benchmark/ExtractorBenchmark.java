@@ -0,0 +1,77 @@
+package com.cht.smsforward.benchmark;
+
+import com.cht.smsforward.util.RuleBasedCodeExtractor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+/**
+ * Verification code extraction cost per message (one corpus message per operation)
+ */
+@State(Scope.Thread)
+public class ExtractorBenchmark {
+
+    @Param({BenchmarkCorpus.SAMPLE, BenchmarkCorpus.BANK, BenchmarkCorpus.MARKETING, BenchmarkCorpus.LONG})
+    public String corpus;
+
+    private String[] senders;
+    private String[] contents;
+    private int cursor;
+
+    private RuleBasedCodeExtractor extractor;
+
+    @Setup
+    public void setUp() {
+        List<String[]> messages = BenchmarkCorpus.load(corpus);
+        senders = new String[messages.size()];
+        contents = new String[messages.size()];
+        for (int i = 0; i < messages.size(); i++) {
+            senders[i] = messages.get(i)[0];
+            contents[i] = messages.get(i)[1];
+        }
+        extractor = new RuleBasedCodeExtractor(BenchmarkCorpus.loadBundledRules());
+    }
+
+    private int next() {
+        int index = cursor;
+        cursor = index + 1 == contents.length ? 0 : index + 1;
+        return index;
+    }
+
+    /**
+     * Full cascade with the default profile (no sender, no template cache)
+     */
+    @Benchmark
+    public List<String> extractVerificationCodes() {
+        return extractor.extractVerificationCodes(contents[next()], null);
+    }
+
+    /**
+     * Service path: sender-specific profile plus the learned template cache
+     */
+    @Benchmark
+    public List<String> extractVerificationCodesWithSender() {
+        int index = next();
+        return extractor.extractVerificationCodes(contents[index], senders[index]);
+    }
+
+    @Benchmark
+    public String getPrimaryVerificationCode() {
+        int index = next();
+        return extractor.getPrimaryVerificationCode(contents[index], senders[index]);
+    }
+
+    /**
+     * Keyword prefilter alone, which decides whether the regex cascade runs at all
+     */
+    @Benchmark
+    public boolean hasVerificationKeywords() {
+        int index = next();
+        return extractor.hasVerificationKeywords(contents[index], senders[index]);
+    }
+}
@@ -0,0 +1,339 @@
+package com.cht.smsforward.benchmark;
+
+import android.content.SharedPreferences;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * JVM stand-in for Android's SharedPreferencesImpl
+ * Like the platform implementation it keeps all values in memory and rewrites the whole XML
+ * file (followed by an fsync) on every commit/apply, so write cost scales with the total size
+ * of the file rather than the size of the change. Writes happen synchronously on the calling
+ * thread so the benchmark measures them; bytes written are counted for every commit.
+ */
+final class FileBackedSharedPreferences implements SharedPreferences {
+
+    private final File file;
+    private final Map<String, Object> values = new HashMap<>();
+
+    private long bytesWritten;
+    private long lastCommitBytes;
+    private int commitCount;
+
+    /**
+     * Open the file, reading existing values like the platform does on first access
+     */
+    FileBackedSharedPreferences(File file) {
+        this.file = file;
+        if (file.exists()) {
+            read();
+        }
+    }
+
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    long getLastCommitBytes() {
+        return lastCommitBytes;
+    }
+
+    int getCommitCount() {
+        return commitCount;
+    }
+
+    @Override
+    public Map<String, ?> getAll() {
+        synchronized (values) {
+            return new HashMap<>(values);
+        }
+    }
+
+    @Override
+    public String getString(String key, String defValue) {
+        Object value = get(key);
+        return value != null ? (String) value : defValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<String> getStringSet(String key, Set<String> defValues) {
+        Object value = get(key);
+        return value != null ? (Set<String>) value : defValues;
+    }
+
+    @Override
+    public int getInt(String key, int defValue) {
+        Object value = get(key);
+        return value != null ? (Integer) value : defValue;
+    }
+
+    @Override
+    public long getLong(String key, long defValue) {
+        Object value = get(key);
+        return value != null ? (Long) value : defValue;
+    }
+
+    @Override
+    public float getFloat(String key, float defValue) {
+        Object value = get(key);
+        return value != null ? (Float) value : defValue;
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean defValue) {
+        Object value = get(key);
+        return value != null ? (Boolean) value : defValue;
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Editor edit() {
+        return new FileEditor();
+    }
+
+    @Override
+    public void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        // 基准测试不需要变更通知
+    }
+
+    @Override
+    public void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+    }
+
+    private Object get(String key) {
+        synchronized (values) {
+            return values.get(key);
+        }
+    }
+
+    private final class FileEditor implements Editor {
+        private final Map<String, Object> modified = new HashMap<>();
+        private boolean clear;
+
+        @Override
+        public Editor putString(String key, String value) {
+            modified.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putStringSet(String key, Set<String> values) {
+            modified.put(key, values != null ? new HashSet<>(values) : null);
+            return this;
+        }
+
+        @Override
+        public Editor putInt(String key, int value) {
+            modified.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putLong(String key, long value) {
+            modified.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putFloat(String key, float value) {
+            modified.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putBoolean(String key, boolean value) {
+            modified.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor remove(String key) {
+            modified.put(key, null);
+            return this;
+        }
+
+        @Override
+        public Editor clear() {
+            clear = true;
+            return this;
+        }
+
+        @Override
+        public boolean commit() {
+            synchronized (values) {
+                if (clear) {
+                    values.clear();
+                }
+                for (Map.Entry<String, Object> entry : modified.entrySet()) {
+                    if (entry.getValue() == null) {
+                        values.remove(entry.getKey());
+                    } else {
+                        values.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                write();
+            }
+            return true;
+        }
+
+        @Override
+        public void apply() {
+            commit();
+        }
+    }
+
+    // 文件格式：每行一个条目，与平台的 XML 格式同量级（字符串按 XML 转义）
+
+    private void write() {
+        CountingOutputStream output = null;
+        try (FileOutputStream fileOutput = new FileOutputStream(file)) {
+            output = new CountingOutputStream(fileOutput);
+            Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+            writer.write("<?xml version='1.0' encoding='utf-8' standalone='yes' ?>\n<map>\n");
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
+                writeEntry(writer, entry.getKey(), entry.getValue());
+            }
+            writer.write("</map>\n");
+            writer.flush();
+            fileOutput.getFD().sync();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + file, e);
+        }
+        lastCommitBytes = output.count;
+        bytesWritten += output.count;
+        commitCount++;
+    }
+
+    private static void writeEntry(Writer writer, String key, Object value) throws IOException {
+        String name = escape(key);
+        if (value instanceof String) {
+            writer.write("<string name=\"" + name + "\">" + escape((String) value) + "</string>\n");
+        } else if (value instanceof Set) {
+            StringBuilder joined = new StringBuilder();
+            for (Object item : (Set<?>) value) {
+                joined.append("<string>").append(escape((String) item)).append("</string>");
+            }
+            writer.write("<set name=\"" + name + "\">" + joined + "</set>\n");
+        } else {
+            String type = value instanceof Integer ? "int" : value instanceof Long ? "long"
+                    : value instanceof Float ? "float" : "boolean";
+            writer.write("<" + type + " name=\"" + name + "\" value=\"" + value + "\" />\n");
+        }
+    }
+
+    private void read() {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                readEntry(line);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + file, e);
+        }
+    }
+
+    private void readEntry(String line) {
+        int nameStart = line.indexOf(" name=\"");
+        if (!line.startsWith("<") || nameStart == -1) {
+            return;
+        }
+        String type = line.substring(1, nameStart);
+        int nameEnd = line.indexOf('"', nameStart + 7);
+        String key = unescape(line.substring(nameStart + 7, nameEnd));
+
+        switch (type) {
+            case "string":
+                values.put(key, unescape(line.substring(nameEnd + 2, line.lastIndexOf("</string>"))));
+                break;
+            case "set":
+                Set<String> set = new HashSet<>();
+                String body = line.substring(nameEnd + 2, line.lastIndexOf("</set>"));
+                for (int start = body.indexOf("<string>"); start != -1; start = body.indexOf("<string>", start)) {
+                    int end = body.indexOf("</string>", start);
+                    set.add(unescape(body.substring(start + 8, end)));
+                    start = end;
+                }
+                values.put(key, set);
+                break;
+            default:
+                int valueStart = line.indexOf("value=\"") + 7;
+                String value = line.substring(valueStart, line.indexOf('"', valueStart));
+                if ("int".equals(type)) {
+                    values.put(key, Integer.parseInt(value));
+                } else if ("long".equals(type)) {
+                    values.put(key, Long.parseLong(value));
+                } else if ("float".equals(type)) {
+                    values.put(key, Float.parseFloat(value));
+                } else {
+                    values.put(key, Boolean.parseBoolean(value));
+                }
+                break;
+        }
+    }
+
+    private static String escape(String text) {
+        StringBuilder builder = new StringBuilder(text.length() + 16);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&': builder.append("&amp;"); break;
+                case '<': builder.append("&lt;"); break;
+                case '>': builder.append("&gt;"); break;
+                case '"': builder.append("&quot;"); break;
+                case '\n': builder.append("&#10;"); break;
+                case '\r': builder.append("&#13;"); break;
+                default: builder.append(c); break;
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String unescape(String text) {
+        if (text.indexOf('&') == -1) {
+            return text;
+        }
+        return text.replace("&#13;", "\r").replace("&#10;", "\n").replace("&quot;", "\"")
+                .replace("&gt;", ">").replace("&lt;", "<").replace("&amp;", "&");
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
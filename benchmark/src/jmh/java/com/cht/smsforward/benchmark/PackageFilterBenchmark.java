@@ -0,0 +1,78 @@
+package com.cht.smsforward.benchmark;
+
+import com.cht.smsforward.service.SmsPackageFilter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per-notification package check in SmsNotificationListener.onNotificationPosted
+ * Runs on the listener's main thread for every notification on the device; the budget is well
+ * under one microsecond with zero allocation (check gc.alloc.rate.norm = 0 B/op).
+ */
+@State(Scope.Thread)
+public class PackageFilterBenchmark {
+
+    // 典型通知流：大部分来自聊天、媒体和系统应用，少量来自短信应用
+    private static final String[] NOTIFICATION_PACKAGES = {
+        "com.tencent.mm",
+        "com.whatsapp",
+        "com.spotify.music",
+        "com.android.systemui",
+        "com.tencent.mobileqq",
+        "com.google.android.youtube",
+        "org.telegram.messenger",
+        "com.ss.android.ugc.aweme",
+        "com.android.mms",
+        "com.google.android.gm",
+        "com.eg.android.AlipayGphone",
+        "com.netease.cloudmusic",
+        "com.android.providers.downloads",
+        "com.htc.sense.mms",
+        "com.sina.weibo",
+        "com.taobao.taobao"
+    };
+
+    private String[] packages;
+    private String[] legacyPackages;
+    private SmsPackageFilter filter;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        // 复制字符串，避免与过滤器中的常量是同一个对象（真实场景中包名来自 Binder）
+        packages = new String[NOTIFICATION_PACKAGES.length];
+        for (int i = 0; i < packages.length; i++) {
+            packages[i] = new String(NOTIFICATION_PACKAGES[i].toCharArray());
+        }
+        filter = new SmsPackageFilter();
+        legacyPackages = SmsPackageFilter.DEFAULT_SMS_PACKAGES.toArray(new String[0]);
+    }
+
+    private String next() {
+        int index = cursor;
+        cursor = (index + 1) & (NOTIFICATION_PACKAGES.length - 1);
+        return packages[index];
+    }
+
+    @Benchmark
+    public boolean hashSetFilter() {
+        return filter.accepts(next());
+    }
+
+    /**
+     * Previous implementation: linear equals() scan over the package array
+     */
+    @Benchmark
+    public boolean linearScan() {
+        String packageName = next();
+        for (String smsPackage : legacyPackages) {
+            if (smsPackage.equals(packageName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,162 @@
+package com.cht.smsforward.benchmark;
+
+import com.cht.smsforward.data.GsonPrefsStorageEngine;
+import com.cht.smsforward.data.SmsMessage;
+import com.cht.smsforward.data.SmsMessageStore;
+import com.cht.smsforward.data.SmsStorageEngine;
+import com.cht.smsforward.model.ForwardStatus;
+import com.cht.smsforward.util.RuleBasedCodeExtractor;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SMS persistence cost per storage engine and store size
+ * Each trial starts from a store holding {@code size} messages (capacity = size, so adds evict the
+ * oldest message and the size stays constant). Bytes written per operation are reported as the
+ * {@code bytesPerOp} secondary result next to the latency.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PersistenceBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int size;
+
+    @Param({GsonPrefsStorageEngine.NAME})
+    public String engine;
+
+    private File directory;
+    private File prefsFile;
+    private FileBackedSharedPreferences prefs;
+    private SmsMessageStore store;
+
+    private List<SmsMessage> stored;
+    private String[][] corpus;
+    private List<List<String>> corpusCodes;
+    private long nextTimestamp;
+    private int cursor;
+
+    /**
+     * Bytes written to the preferences file per operation
+     * JMH sums EVENTS counters over the measurement iterations, so each iteration reports its
+     * share and the summed result is the per-operation size.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WriteCounters {
+        public double bytesPerOp;
+        private int measurementIterations;
+
+        @Setup(Level.Iteration)
+        public void reset(BenchmarkParams params) {
+            bytesPerOp = 0;
+            measurementIterations = Math.max(1, params.getMeasurement().getCount());
+        }
+
+        void record(long lastCommitBytes) {
+            bytesPerOp = (double) lastCommitBytes / measurementIterations;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("sms-persistence").toFile();
+        prefsFile = new File(directory, "sms_data.xml");
+        corpus = BenchmarkCorpus.load(BenchmarkCorpus.BANK).toArray(new String[0][]);
+        RuleBasedCodeExtractor extractor = new RuleBasedCodeExtractor(BenchmarkCorpus.loadBundledRules());
+        corpusCodes = new ArrayList<>(corpus.length);
+        for (String[] message : corpus) {
+            corpusCodes.add(extractor.extractVerificationCodes(message[1], message[0]));
+        }
+
+        // 预先写入 size 条消息（按时间升序生成，每分钟一条）
+        List<SmsMessage> messages = new ArrayList<>(size);
+        nextTimestamp = 1_700_000_000_000L;
+        for (int i = 0; i < size; i++) {
+            messages.add(newMessage());
+        }
+        openStore().replaceAll(messages);
+
+        store = openStore();
+        store.preload();
+        stored = store.getMessages();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        prefsFile.delete();
+        directory.delete();
+    }
+
+    private SmsMessageStore openStore() {
+        prefs = new FileBackedSharedPreferences(prefsFile);
+        return new SmsMessageStore(createEngine(engine, prefs), size);
+    }
+
+    static SmsStorageEngine createEngine(String name, FileBackedSharedPreferences prefs) {
+        switch (name) {
+            case GsonPrefsStorageEngine.NAME:
+                return new GsonPrefsStorageEngine(prefs);
+            default:
+                throw new IllegalArgumentException("Unknown storage engine: " + name);
+        }
+    }
+
+    private SmsMessage newMessage() {
+        int index = cursor++ % corpus.length;
+        String[] message = corpus[index];
+        List<String> codes = new ArrayList<>(corpusCodes.get(index));
+        long timestamp = nextTimestamp;
+        nextTimestamp += 60_000;
+        return new SmsMessage(message[1], message[0], "com.android.mms", timestamp,
+                codes, RuleBasedCodeExtractor.selectPrimaryCode(codes), ForwardStatus.NOT_SENT, null);
+    }
+
+    /**
+     * A new SMS arrives (insert, evict oldest, persist)
+     */
+    @Benchmark
+    public boolean add(WriteCounters counters) {
+        boolean added = store.add(newMessage());
+        counters.record(prefs.getLastCommitBytes());
+        return added;
+    }
+
+    /**
+     * A forwarding status change of a recent message (the hot write path: several per SMS)
+     */
+    @Benchmark
+    public boolean updateStatus(WriteCounters counters) {
+        // 状态变化是写时复制：新版本替换存储中的消息（与监听服务的转发路径相同）
+        SmsMessage message = stored.get(cursor++ % Math.min(stored.size(), 16));
+        ForwardStatus status = (cursor & 1) == 0 ? ForwardStatus.SUCCESS : ForwardStatus.SENDING;
+        boolean updated = store.update(message.withEmailStatus(status, null));
+        counters.record(prefs.getLastCommitBytes());
+        return updated;
+    }
+
+    /**
+     * Cold load: open the preferences file and read all messages (process start)
+     */
+    @Benchmark
+    public int load() {
+        FileBackedSharedPreferences coldPrefs = new FileBackedSharedPreferences(prefsFile);
+        return new SmsMessageStore(createEngine(engine, coldPrefs), size).preload();
+    }
+}
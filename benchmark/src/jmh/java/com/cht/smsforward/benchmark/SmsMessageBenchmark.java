@@ -0,0 +1,72 @@
+package com.cht.smsforward.benchmark;
+
+import com.cht.smsforward.data.SmsMessage;
+import com.cht.smsforward.util.RuleBasedCodeExtractor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SmsMessage construction cost, alone and together with extraction (what the service does per SMS)
+ */
+@State(Scope.Thread)
+public class SmsMessageBenchmark {
+
+    private static final String PACKAGE_NAME = "com.android.mms";
+
+    @Param({BenchmarkCorpus.SAMPLE, BenchmarkCorpus.BANK, BenchmarkCorpus.LONG})
+    public String corpus;
+
+    private String[] senders;
+    private String[] contents;
+    private List<List<String>> codes;
+    private String[] primaryCodes;
+    private int cursor;
+    private long timestamp = 1_700_000_000_000L;
+
+    private RuleBasedCodeExtractor extractor;
+
+    @Setup
+    public void setUp() {
+        List<String[]> messages = BenchmarkCorpus.load(corpus);
+        extractor = new RuleBasedCodeExtractor(BenchmarkCorpus.loadBundledRules());
+
+        senders = new String[messages.size()];
+        contents = new String[messages.size()];
+        primaryCodes = new String[messages.size()];
+        codes = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            senders[i] = messages.get(i)[0];
+            contents[i] = messages.get(i)[1];
+            codes.add(extractor.extractVerificationCodes(contents[i], senders[i]));
+            primaryCodes[i] = RuleBasedCodeExtractor.selectPrimaryCode(codes.get(i));
+        }
+    }
+
+    private int next() {
+        int index = cursor;
+        cursor = index + 1 == contents.length ? 0 : index + 1;
+        return index;
+    }
+
+    @Benchmark
+    public SmsMessage construct() {
+        int index = next();
+        return new SmsMessage(contents[index], senders[index], PACKAGE_NAME, timestamp++,
+                codes.get(index), primaryCodes[index]);
+    }
+
+    @Benchmark
+    public SmsMessage extractAndConstruct() {
+        int index = next();
+        List<String> found = extractor.extractVerificationCodes(contents[index], senders[index]);
+        return new SmsMessage(contents[index], senders[index], PACKAGE_NAME, timestamp++,
+                found, RuleBasedCodeExtractor.selectPrimaryCode(found));
+    }
+}
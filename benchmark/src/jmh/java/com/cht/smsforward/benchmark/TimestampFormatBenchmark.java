@@ -0,0 +1,65 @@
+package com.cht.smsforward.benchmark;
+
+import com.cht.smsforward.data.SmsMessage;
+import com.cht.smsforward.util.TimestampFormatter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Timestamp text for one row bind in SmsAdapter (check gc.alloc.rate.norm with -prof gc)
+ * Cycles over a screenful of messages the way fast scrolling rebinds the same rows.
+ */
+@State(Scope.Thread)
+public class TimestampFormatBenchmark {
+
+    private static final int VISIBLE_ROWS = 16;
+
+    private SmsMessage[] rows;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        rows = new SmsMessage[VISIBLE_ROWS];
+        long timestamp = 1_700_000_000_000L;
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new SmsMessage("您的验证码是" + (100000 + i), "95588", "com.android.mms",
+                    timestamp - i * 61_000L, Arrays.asList(String.valueOf(100000 + i)), String.valueOf(100000 + i));
+        }
+    }
+
+    private SmsMessage next() {
+        SmsMessage row = rows[cursor];
+        cursor = (cursor + 1) & (VISIBLE_ROWS - 1);
+        return row;
+    }
+
+    /**
+     * Previous implementation: new SimpleDateFormat and Date per call
+     */
+    @Benchmark
+    public String newFormatterPerCall() {
+        SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss", Locale.getDefault());
+        return sdf.format(new Date(next().getTimestamp()));
+    }
+
+    @Benchmark
+    public String threadLocalFormatter() {
+        return TimestampFormatter.formatTime(next().getTimestamp());
+    }
+
+    /**
+     * What SmsAdapter binds now: cached on the message after the first format
+     */
+    @Benchmark
+    public String cachedOnMessage() {
+        return next().getFormattedTimestamp();
+    }
+}
@@ -0,0 +1,35 @@
+package com.cht.smsforward.macrobenchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+/**
+ * Generates the app's Baseline Profile from the critical user journeys
+ * Seeding runs code extraction and the save path in the app process; the cold start covers
+ * Application init, Gson parsing of the stored list and MainActivity; flinging covers row binding.
+ * Run with ./gradlew :app:generateReleaseBaselineProfile (writes app/src/release/generated/baselineProfiles/).
+ */
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @Test
+    public void generate() {
+        baselineProfileRule.collect(SampleData.PACKAGE_NAME, scope -> {
+            SampleData.seed(scope);
+            scope.killProcess();
+            scope.pressHome();
+            scope.startActivityAndWait();
+            ScrollBenchmark.flingMessageList(scope.getDevice());
+            return Unit.INSTANCE;
+        });
+    }
+}
@@ -0,0 +1,35 @@
+package com.cht.smsforward.macrobenchmark;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+
+import java.io.IOException;
+
+/**
+ * Target app and the sample data the benchmarks run against
+ */
+final class SampleData {
+
+    static final String PACKAGE_NAME = "com.cht.smsforward";
+
+    // 与 app 中消息存储上限一致，列表满屏且可以滚动
+    static final int MESSAGE_COUNT = 100;
+
+    private SampleData() {
+    }
+
+    /**
+     * Replace the app's stored messages with sample SMS (app SampleDataReceiver, requires the shell's
+     * DUMP permission). The receiver only exists in the benchmarkRelease / nonMinifiedRelease builds
+     * these tests install. am broadcast returns after the receiver has saved the messages.
+     */
+    static void seed(MacrobenchmarkScope scope) {
+        try {
+            scope.getDevice().executeShellCommand("am broadcast"
+                    + " -a com.cht.smsforward.action.SEED_SAMPLE_MESSAGES"
+                    + " -n " + PACKAGE_NAME + "/.util.SampleDataReceiver"
+                    + " --ei count " + MESSAGE_COUNT);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to seed sample messages", e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.cht.smsforward.macrobenchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.TraceSectionMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import kotlin.Unit;
+
+/**
+ * Frame timing while flinging through the message list on MainActivity
+ * Look at frameDurationCpuMs / frameOverrunMs percentiles; SmsAdapter.bind shows rebinding cost.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ScrollBenchmark {
+
+    private static final int ITERATIONS = 10;
+    private static final int FLINGS = 3;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void scrollWithoutCompilation() {
+        scroll(new CompilationMode.None());
+    }
+
+    @Test
+    public void scrollWithBaselineProfile() {
+        scroll(new CompilationMode.Partial(BaselineProfileMode.Require, 0));
+    }
+
+    private void scroll(CompilationMode compilationMode) {
+        benchmarkRule.measureRepeated(
+                SampleData.PACKAGE_NAME,
+                Arrays.asList(new FrameTimingMetric(),
+                        new TraceSectionMetric("SmsAdapter.bind", TraceSectionMetric.Mode.Sum.INSTANCE)),
+                compilationMode,
+                null, // 只测量滚动，启动在 setup 中完成
+                ITERATIONS,
+                scope -> {
+                    SampleData.seed(scope);
+                    scope.killProcess();
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    flingMessageList(scope.getDevice());
+                    return Unit.INSTANCE;
+                });
+    }
+
+    /**
+     * Fling down through the list and back up (shared with BaselineProfileGenerator)
+     */
+    static void flingMessageList(UiDevice device) {
+        // 消息列表位于主界面的 ScrollView（id: main）中，滚动的是外层容器
+        UiObject2 content = device.findObject(By.res(SampleData.PACKAGE_NAME, "main"));
+        // 手势避开屏幕边缘，防止触发系统返回手势
+        content.setGestureMargin(device.getDisplayWidth() / 5);
+        for (int i = 0; i < FLINGS; i++) {
+            content.fling(Direction.DOWN);
+            device.waitForIdle();
+        }
+        content.fling(Direction.UP);
+        device.waitForIdle();
+    }
+}
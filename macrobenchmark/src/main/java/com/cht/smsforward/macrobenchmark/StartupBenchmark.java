@@ -0,0 +1,62 @@
+package com.cht.smsforward.macrobenchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.TraceSectionMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import kotlin.Unit;
+
+/**
+ * MainActivity cold start with a full message list (Application init, SmsDataManager preload and
+ * JSON parse, first bind of the list), without and with the Baseline Profile
+ * Compare timeToInitialDisplayMs of the two tests; SmsAdapter.bind is the total row bind time.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void startupWithoutCompilation() {
+        startup(new CompilationMode.None());
+    }
+
+    @Test
+    public void startupWithBaselineProfile() {
+        startup(new CompilationMode.Partial(BaselineProfileMode.Require, 0));
+    }
+
+    private void startup(CompilationMode compilationMode) {
+        benchmarkRule.measureRepeated(
+                SampleData.PACKAGE_NAME,
+                Arrays.asList(new StartupTimingMetric(),
+                        new TraceSectionMetric("SmsAdapter.bind", TraceSectionMetric.Mode.Sum.INSTANCE)),
+                compilationMode,
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    // 写入样本数据会启动 app 进程，写完后结束进程，保证测量的是冷启动
+                    SampleData.seed(scope);
+                    scope.killProcess();
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                });
+    }
+}